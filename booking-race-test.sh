@@ -0,0 +1,59 @@
+#!/bin/bash
+# Concurrency check for booking admission: fires many simultaneous bookings at the same trainer slot
+# and verifies exactly one of them succeeds.
+# Usage: ./booking-race-test.sh <parent_email> <parent_password> <trainer_id> <session_type_option_id> <scheduled_at> [attempts]
+# Example: ./booking-race-test.sh parent@hov.com secret123 1 1 2026-03-02T15:00:00 50
+
+BASE_URL="http://localhost:8080/api"
+
+if [ -z "$1" ] || [ -z "$2" ] || [ -z "$3" ] || [ -z "$4" ] || [ -z "$5" ]; then
+    echo "Usage: ./booking-race-test.sh <parent_email> <parent_password> <trainer_id> <session_type_option_id> <scheduled_at> [attempts]"
+    exit 1
+fi
+
+EMAIL="$1"
+PASSWORD="$2"
+TRAINER_ID="$3"
+OPTION_ID="$4"
+SCHEDULED_AT="$5"
+ATTEMPTS="${6:-50}"
+
+echo "=== Logging in ==="
+LOGIN_RESPONSE=$(curl -s -X POST "$BASE_URL/auth/login" \
+    -H "Content-Type: application/json" \
+    -d "{\"email\": \"$EMAIL\", \"password\": \"$PASSWORD\"}")
+
+TOKEN=$(echo $LOGIN_RESPONSE | grep -o '"token":"[^"]*"' | cut -d'"' -f4)
+
+if [ -z "$TOKEN" ]; then
+    echo "Failed to get token. Response: $LOGIN_RESPONSE"
+    exit 1
+fi
+
+RESULTS=$(mktemp)
+
+echo "=== Firing $ATTEMPTS concurrent bookings for trainer $TRAINER_ID at $SCHEDULED_AT ==="
+for i in $(seq 1 "$ATTEMPTS"); do
+    curl -s -o /dev/null -w "%{http_code}\n" -X POST "$BASE_URL/bookings" \
+        -H "Authorization: Bearer $TOKEN" \
+        -H "Content-Type: application/json" \
+        -d "{\"trainerId\": $TRAINER_ID, \"sessionTypeOptionId\": $OPTION_ID, \"scheduledAt\": \"$SCHEDULED_AT\"}" \
+        >> "$RESULTS" &
+done
+wait
+
+CREATED=$(grep -c '^201$' "$RESULTS")
+CONFLICTS=$(grep -c '^409$' "$RESULTS")
+OTHER=$((ATTEMPTS - CREATED - CONFLICTS))
+rm -f "$RESULTS"
+
+echo "201 Created:  $CREATED"
+echo "409 Conflict: $CONFLICTS"
+echo "Other:        $OTHER"
+
+if [ "$CREATED" -eq 1 ]; then
+    echo "PASS - exactly one booking was admitted"
+else
+    echo "FAIL - expected exactly one booking, got $CREATED"
+    exit 1
+fi
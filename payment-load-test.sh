@@ -0,0 +1,112 @@
+#!/bin/bash
+# End-to-end load test of booking -> card payment -> refund. Meant for a server started with the square-stub
+# profile (SPRING_PROFILES_ACTIVE=square-stub ./run.sh) so no real card is charged.
+# Each flow books its own slot (first_slot + n * step_minutes), so pick a trainer with enough open availability.
+# Reports status counts, p50/p99 latency per step and completed flows per second.
+# Usage: ./payment-load-test.sh <parent_email> <parent_password> <staff_email> <staff_password> <trainer_id> <session_type_option_id> <first_slot> [flows] [concurrency] [step_minutes] [source_id]
+# Example: ./payment-load-test.sh parent@hov.com secret123 admin@hov.com secret123 1 1 2026-03-02T08:00:00 200 20 60
+# source_id defaults to cnon:card-nonce-ok (random outcomes per square.stub.*); use stub:ok, stub:hang,
+# stub:error or stub:decline:<CODE> to force one outcome.
+
+BASE_URL="http://localhost:8080/api"
+
+if [ -z "$1" ] || [ -z "$2" ] || [ -z "$3" ] || [ -z "$4" ] || [ -z "$5" ] || [ -z "$6" ] || [ -z "$7" ]; then
+    echo "Usage: ./payment-load-test.sh <parent_email> <parent_password> <staff_email> <staff_password> <trainer_id> <session_type_option_id> <first_slot> [flows] [concurrency] [step_minutes] [source_id]"
+    exit 1
+fi
+
+TRAINER_ID="$5"
+OPTION_ID="$6"
+FIRST_SLOT="$7"
+FLOWS="${8:-100}"
+CONCURRENCY="${9:-10}"
+STEP_MINUTES="${10:-60}"
+SOURCE_ID="${11:-cnon:card-nonce-ok}"
+
+login() {
+    curl -s -X POST "$BASE_URL/auth/login" \
+        -H "Content-Type: application/json" \
+        -d "{\"email\": \"$1\", \"password\": \"$2\"}" | grep -o '"token":"[^"]*"' | cut -d'"' -f4
+}
+
+echo "=== Logging in ==="
+PARENT_TOKEN=$(login "$1" "$2")
+STAFF_TOKEN=$(login "$3" "$4")
+if [ -z "$PARENT_TOKEN" ] || [ -z "$STAFF_TOKEN" ]; then
+    echo "Failed to log in parent and/or staff user"
+    exit 1
+fi
+
+RESULTS=$(mktemp)
+
+# Runs one request and appends "<step> <http_code> <seconds>" to the results; prints the response body
+timed() {
+    local step="$1"
+    shift
+    local out
+    out=$(curl -s -w "\n%{http_code} %{time_total}" "$@")
+    echo "$step $(echo "$out" | tail -n 1)" >> "$RESULTS"
+    echo "$out" | sed '$d'
+}
+
+# One booking -> payment -> refund flow; later steps are skipped when an earlier one fails
+flow() {
+    local n="$1"
+    local slot
+    slot=$(date -d "${FIRST_SLOT/T/ } $((n * STEP_MINUTES)) minutes" +%Y-%m-%dT%H:%M:%S)
+    local started
+    started=$(date +%s.%N)
+
+    local booking
+    booking=$(timed booking -X POST "$BASE_URL/bookings" \
+        -H "Authorization: Bearer $PARENT_TOKEN" \
+        -H "Content-Type: application/json" \
+        -d "{\"trainerId\": $TRAINER_ID, \"sessionTypeOptionId\": $OPTION_ID, \"scheduledAt\": \"$slot\"}")
+    local booking_id
+    booking_id=$(echo "$booking" | grep -o '"id":[0-9]*' | head -1 | cut -d: -f2)
+    [ -z "$booking_id" ] && return
+
+    local payment
+    payment=$(timed payment -X POST "$BASE_URL/payments" \
+        -H "Authorization: Bearer $PARENT_TOKEN" \
+        -H "Content-Type: application/json" \
+        -d "{\"bookingId\": $booking_id, \"sourceId\": \"$SOURCE_ID\"}")
+    local payment_id
+    payment_id=$(echo "$payment" | grep '"status":"COMPLETED"' | grep -o '"id":[0-9]*' | head -1 | cut -d: -f2)
+    [ -z "$payment_id" ] && return
+
+    timed refund -X POST "$BASE_URL/payments/$payment_id/refund" \
+        -H "Authorization: Bearer $STAFF_TOKEN" \
+        -H "Content-Type: application/json" \
+        -d "{\"reason\": \"Load test\"}" > /dev/null
+
+    echo "flow 200 $(echo "$(date +%s.%N) - $started" | bc)" >> "$RESULTS"
+}
+
+export BASE_URL PARENT_TOKEN STAFF_TOKEN TRAINER_ID OPTION_ID FIRST_SLOT STEP_MINUTES SOURCE_ID RESULTS
+export -f timed flow
+
+echo "=== Running $FLOWS flows, $CONCURRENCY at a time, card source $SOURCE_ID ==="
+START=$(date +%s.%N)
+seq 0 $((FLOWS - 1)) | xargs -P "$CONCURRENCY" -I{} bash -c 'flow {}'
+ELAPSED=$(echo "$(date +%s.%N) - $START" | bc)
+
+echo ""
+printf "%-8s %-28s %10s %10s %10s\n" "step" "status codes" "p50 (ms)" "p99 (ms)" "max (ms)"
+for step in booking payment refund flow; do
+    TIMES=$(grep "^$step " "$RESULTS" | awk '{print $3 * 1000}' | sort -n)
+    COUNT=$(echo "$TIMES" | grep -c .)
+    [ "$COUNT" -eq 0 ] && continue
+    CODES=$(grep "^$step " "$RESULTS" | awk '{print $2}' | sort | uniq -c | awk '{printf "%sx%s ", $1, $2}')
+    P50=$(echo "$TIMES" | awk -v n="$COUNT" 'NR == int((n - 1) * 0.50) + 1 {printf "%.0f", $1}')
+    P99=$(echo "$TIMES" | awk -v n="$COUNT" 'NR == int((n - 1) * 0.99) + 1 {printf "%.0f", $1}')
+    MAX=$(echo "$TIMES" | tail -n 1 | awk '{printf "%.0f", $1}')
+    printf "%-8s %-28s %10s %10s %10s\n" "$step" "$CODES" "$P50" "$P99" "$MAX"
+done
+
+COMPLETED=$(grep -c "^flow " "$RESULTS")
+echo ""
+echo "Completed flows: $COMPLETED / $FLOWS in $(printf "%.1f" "$ELAPSED")s ($(echo "scale=2; $COMPLETED / $ELAPSED" | bc) flows/s)"
+echo "Payment 400 responses are declines; 202 means the card call timed out (or Square answered 5xx) and is left to the webhook path;"
+echo "503 means the circuit breaker or bulkhead shed the call without contacting Square (see /actuator/metrics/square.circuit.state)."
+rm -f "$RESULTS"
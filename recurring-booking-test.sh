@@ -0,0 +1,89 @@
+#!/bin/bash
+# Check for recurring bookings: books a weekly series, checks the last session holds its slot until its payment
+# deadline (12 hours before it starts) rather than for a single 15-minute checkout, then sends the same series again
+# and verifies every occurrence of the repeat comes back as a CONFLICT. Prints the response time of each request.
+# Usage: ./recurring-booking-test.sh <parent_email> <parent_password> <trainer_id> <session_type_option_id> <start_date> <days_of_week> <start_time> [occurrences]
+# Example: ./recurring-booking-test.sh parent@hov.com secret123 1 1 2026-11-02 MONDAY,THURSDAY 16:00 12
+
+BASE_URL="http://localhost:8080/api"
+
+if [ -z "$1" ] || [ -z "$2" ] || [ -z "$3" ] || [ -z "$4" ] || [ -z "$5" ] || [ -z "$6" ] || [ -z "$7" ]; then
+    echo "Usage: ./recurring-booking-test.sh <parent_email> <parent_password> <trainer_id> <session_type_option_id> <start_date> <days_of_week> <start_time> [occurrences]"
+    exit 1
+fi
+
+EMAIL="$1"
+PASSWORD="$2"
+TRAINER_ID="$3"
+OPTION_ID="$4"
+START_DATE="$5"
+DAYS=$(echo "$6" | sed 's/[^,][^,]*/"&"/g')
+START_TIME="$7"
+OCCURRENCES="${8:-12}"
+
+echo "=== Logging in ==="
+LOGIN_RESPONSE=$(curl -s -X POST "$BASE_URL/auth/login" \
+    -H "Content-Type: application/json" \
+    -d "{\"email\": \"$EMAIL\", \"password\": \"$PASSWORD\"}")
+
+TOKEN=$(echo $LOGIN_RESPONSE | grep -o '"token":"[^"]*"' | cut -d'"' -f4)
+
+if [ -z "$TOKEN" ]; then
+    echo "Failed to get token. Response: $LOGIN_RESPONSE"
+    exit 1
+fi
+
+BODY="{\"trainerId\": $TRAINER_ID, \"sessionTypeOptionId\": $OPTION_ID, \"startDate\": \"$START_DATE\", \"daysOfWeek\": [$DAYS], \"startTime\": \"$START_TIME\", \"occurrences\": $OCCURRENCES}"
+RESPONSE=$(mktemp)
+
+book_series() {
+    curl -s -o "$RESPONSE" -w "%{http_code} %{time_total}" -X POST "$BASE_URL/bookings/recurring" \
+        -H "Authorization: Bearer $TOKEN" \
+        -H "Content-Type: application/json" \
+        -d "$BODY"
+}
+
+count() {
+    grep -o "\"status\":\"$1\"" "$RESPONSE" | wc -l
+}
+
+echo "=== Booking $OCCURRENCES sessions on $6 at $START_TIME from $START_DATE ==="
+read -r STATUS ELAPSED <<< "$(book_series)"
+CREATED=$(count CREATED)
+echo "HTTP $STATUS in ${ELAPSED}s - created $CREATED, conflicts $(count CONFLICT), unavailable $(count UNAVAILABLE)"
+LAST_BOOKING_ID=$(grep -o '"bookingId":[0-9]*' "$RESPONSE" | tail -1 | cut -d':' -f2)
+
+FAILURES=0
+
+# Each session is paid on its own, so a late one must still be held long after the checkout window has passed
+if [ -n "$LAST_BOOKING_ID" ]; then
+    echo "=== Checking the hold on the last session (booking $LAST_BOOKING_ID) ==="
+    BOOKING=$(curl -s "$BASE_URL/bookings/$LAST_BOOKING_ID" -H "Authorization: Bearer $TOKEN")
+    SCHEDULED_AT=$(echo "$BOOKING" | grep -o '"scheduledAt":"[^"]*"' | cut -d'"' -f4)
+    HOLD_EXPIRES_AT=$(echo "$BOOKING" | grep -o '"holdExpiresAt":"[^"]*"' | cut -d'"' -f4)
+    EXPECTED=$(date -d "${SCHEDULED_AT/T/ } 12 hours ago" +%Y-%m-%dT%H:%M)
+    echo "Scheduled at $SCHEDULED_AT, held until $HOLD_EXPIRES_AT"
+    if [ "${HOLD_EXPIRES_AT:0:16}" == "$EXPECTED" ]; then
+        echo "PASS - the session is held until its payment deadline"
+    else
+        echo "FAIL - expected the hold to run until $EXPECTED"
+        FAILURES=$((FAILURES + 1))
+    fi
+fi
+
+echo "=== Sending the same series again ==="
+read -r STATUS ELAPSED <<< "$(book_series)"
+echo "HTTP $STATUS in ${ELAPSED}s - created $(count CREATED), conflicts $(count CONFLICT), unavailable $(count UNAVAILABLE)"
+REPEAT_CONFLICTS=$(count CONFLICT)
+rm -f "$RESPONSE"
+
+if [ "$CREATED" -gt 0 ] && [ "$REPEAT_CONFLICTS" -eq "$CREATED" ]; then
+    echo "PASS - every session booked the first time conflicted the second time"
+else
+    echo "FAIL - expected $CREATED conflict(s) on the repeat, got $REPEAT_CONFLICTS"
+    FAILURES=$((FAILURES + 1))
+fi
+
+if [ "$FAILURES" -gt 0 ]; then
+    exit 1
+fi
@@ -0,0 +1,77 @@
+#!/bin/bash
+# Fake Square webhook sender: signs events the way Square does and posts them to the local API.
+# Checks signature rejection, acknowledgement, and that a redelivered event id is stored only once.
+# Usage: ./square-webhook-test.sh <signature_key> <notification_url> [square_payment_id] [booking_id] [payment_intent_id]
+# The key and URL must match SQUARE_WEBHOOK_SIGNATURE_KEY / SQUARE_WEBHOOK_NOTIFICATION_URL in .env
+# Example: ./square-webhook-test.sh test-key http://localhost:8080/api/webhooks/square sq-pay-123 42 7
+# The payment event only completes a PENDING payment attempt when it names it (reference_id "<booking_id>-<intent_id>")
+
+WEBHOOK_URL="http://localhost:8080/api/webhooks/square"
+
+if [ -z "$1" ] || [ -z "$2" ]; then
+    echo "Usage: ./square-webhook-test.sh <signature_key> <notification_url> [square_payment_id] [booking_id] [payment_intent_id]"
+    exit 1
+fi
+
+SIGNATURE_KEY="$1"
+NOTIFICATION_URL="$2"
+PAYMENT_ID="${3:-sq-pay-$RANDOM}"
+BOOKING_ID="${4:-0}"
+INTENT_ID="${5:-0}"
+NOW=$(date -u +%Y-%m-%dT%H:%M:%SZ)
+
+# Square's signature: base64(HMAC-SHA256(key, notification_url + body))
+sign() {
+    printf '%s%s' "$NOTIFICATION_URL" "$1" | openssl dgst -sha256 -hmac "$SIGNATURE_KEY" -binary | base64
+}
+
+# Posts a body with the given signature and prints the HTTP status
+send() {
+    local body="$1"
+    local signature="$2"
+    curl -s -o /dev/null -w "%{http_code}" -X POST "$WEBHOOK_URL" \
+        -H "Content-Type: application/json" \
+        -H "x-square-hmacsha256-signature: $signature" \
+        --data-binary "$body"
+}
+
+check() {
+    local description="$1"
+    local expected="$2"
+    local actual="$3"
+    if [ "$actual" == "$expected" ]; then
+        echo "PASS  $description ($actual)"
+    else
+        echo "FAIL  $description - expected $expected, got $actual"
+        FAILURES=$((FAILURES + 1))
+    fi
+}
+
+FAILURES=0
+PAYMENT_EVENT_ID="evt-payment-$(date +%s)-$RANDOM"
+REFUND_EVENT_ID="evt-refund-$(date +%s)-$RANDOM"
+REFUND_ID="sq-refund-$RANDOM"
+
+PAYMENT_EVENT="{\"merchant_id\":\"FAKE\",\"type\":\"payment.updated\",\"event_id\":\"$PAYMENT_EVENT_ID\",\"created_at\":\"$NOW\",\"data\":{\"type\":\"payment\",\"id\":\"$PAYMENT_ID\",\"object\":{\"payment\":{\"id\":\"$PAYMENT_ID\",\"status\":\"COMPLETED\",\"reference_id\":\"$BOOKING_ID-$INTENT_ID\"}}}}"
+REFUND_EVENT="{\"merchant_id\":\"FAKE\",\"type\":\"refund.updated\",\"event_id\":\"$REFUND_EVENT_ID\",\"created_at\":\"$NOW\",\"data\":{\"type\":\"refund\",\"id\":\"$REFUND_ID\",\"object\":{\"refund\":{\"id\":\"$REFUND_ID\",\"payment_id\":\"$PAYMENT_ID\",\"status\":\"COMPLETED\"}}}}"
+
+echo "=== Signature checks ==="
+check "Unsigned event is rejected" 401 "$(send "$PAYMENT_EVENT" "")"
+check "Wrongly signed event is rejected" 401 "$(send "$PAYMENT_EVENT" "bm90LWEtc2lnbmF0dXJl")"
+
+echo "=== Delivery ==="
+check "payment.updated is acknowledged" 200 "$(send "$PAYMENT_EVENT" "$(sign "$PAYMENT_EVENT")")"
+check "Redelivery of the same event is acknowledged" 200 "$(send "$PAYMENT_EVENT" "$(sign "$PAYMENT_EVENT")")"
+check "refund.updated is acknowledged" 200 "$(send "$REFUND_EVENT" "$(sign "$REFUND_EVENT")")"
+
+echo ""
+echo "Square payment id: $PAYMENT_ID, booking id: $BOOKING_ID"
+echo "The inbox should hold exactly one row per event id and both should reach PROCESSED within a few seconds:"
+echo "  SELECT event_id, event_type, status, attempts, last_error FROM webhook_inbox"
+echo "  WHERE event_id IN ('$PAYMENT_EVENT_ID', '$REFUND_EVENT_ID');"
+
+if [ "$FAILURES" -gt 0 ]; then
+    echo "$FAILURES check(s) failed"
+    exit 1
+fi
+echo "All checks passed"
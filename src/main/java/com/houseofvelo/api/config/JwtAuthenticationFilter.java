@@ -1,6 +1,8 @@
 package com.houseofvelo.api.config;
 
-import com.houseofvelo.api.model.Role;
+import com.houseofvelo.api.service.AuthenticatedUserService;
+import com.houseofvelo.api.util.AuthenticatedUser;
+import com.houseofvelo.api.util.JwtPrincipal;
 import com.houseofvelo.api.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -16,6 +18,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 
 @Component
@@ -23,6 +26,7 @@ import java.util.List;
 public class JwtAuthenticationFilter extends OncePerRequestFilter{
 
     private final JwtUtil jwtUtil;
+    private final AuthenticatedUserService authenticatedUserService;
 
     @Override
     protected void doFilterInternal(
@@ -44,30 +48,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter{
         final String jwt = authHeader.substring(7);
 
         try {
-            // Step 3: Extract email from token
-            final String userEmail = jwtUtil.extractEmail(jwt);
+            // Step 3: Check is user is not already authenticated
+            if (SecurityContextHolder.getContext().getAuthentication() == null){
 
-            // Step 4: Check is user is not already authenticated
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null){
+                // Step 4: Verify the token once (cached after the first request) and read email, role and userId
+                JwtPrincipal principal = jwtUtil.authenticate(jwt);
 
-                // Step 5: Validate token
-                if (jwtUtil.validateToken(jwt, userEmail)){
+                if (!principal.isExpired(Instant.now())){
 
-                    // Step 6: Extract role from token
-                    Role role = jwtUtil.extractRole(jwt);
-                    Long userId = jwtUtil.extractUserId(jwt);
-
-                    // Step 7: Create authentication object
+                    // Step 5: Create authentication object - controllers receive the AuthenticatedUser,
+                    // credentials stay the userId for anything still reading getCredentials()
+                    AuthenticatedUser user = authenticatedUserService.load(principal);
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userEmail,
-                            userId,
-                            List.of(new SimpleGrantedAuthority("ROLE_" + role.name()))
+                            user,
+                            user.userId(),
+                            List.of(new SimpleGrantedAuthority("ROLE_" + user.role().name()))
                     );
 
-                    // Step 8: Set additional details
+                    // Step 6: Set additional details
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                    // Step 9: Set authentication in Spring Security context
+                    // Step 7: Set authentication in Spring Security context
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             }
@@ -76,7 +77,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter{
             logger.error("JWT validation error: " + e.getMessage());
         }
 
-        // Step 10: Continue to next filter in chain
+        // Step 8: Continue to next filter in chain
         filterChain.doFilter(request, response);
     }
 
@@ -0,0 +1,137 @@
+package com.houseofvelo.api.config;
+
+import com.houseofvelo.api.service.SlotHoldService;
+import com.houseofvelo.api.service.TokenLedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Postgres-only schema objects that JPA annotations can't express. Hibernate owns the tables;
+ * this runs once they exist and only adds what is missing, so it is safe on every startup.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class PostgresSchemaInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        createBookingTimeRange();
+        backfillCheckoutHolds();
+        createTokenBalanceCheck();
+        protectTokenLedger();
+        backfillOpeningBalances();
+        createTokenReturnIndex();
+    }
+
+    // bookings.time_range = [scheduled_at, scheduled_at + duration) and a GiST exclusion constraint so no two
+    // slot-blocking bookings of the same trainer can overlap, whatever path wrote them
+    private void createBookingTimeRange() {
+        execute("btree_gist extension",
+                "CREATE EXTENSION IF NOT EXISTS btree_gist");
+
+        execute("bookings.time_range column",
+                "ALTER TABLE bookings ADD COLUMN IF NOT EXISTS time_range tsrange " +
+                        "GENERATED ALWAYS AS (tsrange(scheduled_at, scheduled_at + make_interval(mins => duration_minutes), '[)')) STORED");
+
+        if (!constraintExists("bookings_no_trainer_overlap")) {
+            execute("bookings_no_trainer_overlap constraint",
+                    "ALTER TABLE bookings ADD CONSTRAINT bookings_no_trainer_overlap " +
+                            "EXCLUDE USING gist (trainer_id WITH =, time_range WITH &&) " +
+                            "WHERE (status IN ('CONFIRMED', 'UNPAID'))");
+        }
+    }
+
+    // UNPAID bookings from before checkout holds existed would otherwise block their slot forever. Give them the
+    // standard hold from creation time (pay-in-person bookings are governed by their payment deadline instead)
+    private void backfillCheckoutHolds() {
+        execute("checkout hold backfill",
+                "UPDATE bookings SET hold_expires_at = created_at + make_interval(mins => " + SlotHoldService.HOLD_MINUTES + ") " +
+                        "WHERE status = 'UNPAID' AND hold_expires_at IS NULL AND pay_in_person IS NOT TRUE");
+    }
+
+    // Last line of defence behind the conditional token spend: a balance can never go negative
+    private void createTokenBalanceCheck() {
+        if (!constraintExists("subscriptions_tokens_remaining_non_negative")) {
+            executeRequired("subscriptions_tokens_remaining_non_negative constraint",
+                    "ALTER TABLE subscriptions ADD CONSTRAINT subscriptions_tokens_remaining_non_negative " +
+                            "CHECK (tokens_remaining >= 0)");
+        }
+    }
+
+    // token_transactions is append-only - corrections are new rows, never edits
+    private void protectTokenLedger() {
+        executeRequired("token_transactions append-only function",
+                "CREATE OR REPLACE FUNCTION token_transactions_append_only() RETURNS trigger AS $$ " +
+                        "BEGIN RAISE EXCEPTION 'token_transactions is append-only'; END; $$ LANGUAGE plpgsql");
+
+        if (!triggerExists("token_transactions_append_only")) {
+            executeRequired("token_transactions append-only trigger",
+                    "CREATE TRIGGER token_transactions_append_only BEFORE UPDATE OR DELETE ON token_transactions " +
+                            "FOR EACH ROW EXECUTE FUNCTION token_transactions_append_only()");
+        }
+    }
+
+    // Subscriptions from before the ledger get an opening row, dated to their creation, covering whatever balance
+    // the ledger can't account for - after that their ledger sums to tokens_remaining like any other
+    private void backfillOpeningBalances() {
+        execute("token ledger opening balances",
+                "INSERT INTO token_transactions (subscription_id, type, amount, balance_after, notes, created_at) " +
+                        "SELECT s.id, 'GRANTED', s.tokens_remaining - COALESCE(l.total, 0), " +
+                        "       s.tokens_remaining - COALESCE(l.total, 0), '" + TokenLedgerService.OPENING_BALANCE_NOTE + "', s.created_at " +
+                        "FROM subscriptions s " +
+                        "LEFT JOIN (SELECT subscription_id, SUM(amount) AS total FROM token_transactions GROUP BY subscription_id) l " +
+                        "    ON l.subscription_id = s.id " +
+                        "WHERE s.tokens_remaining IS NOT NULL " +
+                        "AND NOT EXISTS (SELECT 1 FROM token_transactions t WHERE t.subscription_id = s.id " +
+                        "    AND t.type = 'GRANTED' AND t.notes = '" + TokenLedgerService.OPENING_BALANCE_NOTE + "')");
+    }
+
+    // At most one RETURNED row per booking, so no replayed cancellation or refund can credit a token twice
+    private void createTokenReturnIndex() {
+        executeRequired("uq_token_transactions_returned_booking index",
+                "CREATE UNIQUE INDEX IF NOT EXISTS uq_token_transactions_returned_booking " +
+                        "ON token_transactions (booking_id) WHERE type = 'RETURNED'");
+    }
+
+    private boolean triggerExists(String name) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_trigger WHERE tgname = ?", Integer.class, name);
+        return count != null && count > 0;
+    }
+
+    private boolean constraintExists(String name) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, name);
+        return count != null && count > 0;
+    }
+
+    // Best effort - a failure is logged and startup continues. Only for objects the application can do without:
+    // the booking overlap constraint (BookingService re-checks conflicts itself) and the backfills
+    private void execute(String description, String sql) {
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (DataAccessException e) {
+            log.error("Could not create {}: {}", description, e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    // Token ledger guards nothing else in the application enforces - refuse to start without them
+    private void executeRequired(String description, String sql) {
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("Could not create " + description + ": " + e.getMostSpecificCause().getMessage(), e);
+        }
+    }
+}
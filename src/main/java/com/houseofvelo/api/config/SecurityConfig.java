@@ -1,5 +1,6 @@
 package com.houseofvelo.api.config;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.jspecify.annotations.Nullable;
@@ -34,6 +35,9 @@ public class SecurityConfig {
                 .sessionManagement(session ->
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Streamed responses (exports) finish on an async dispatch - the original request was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Public auth endpoints
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/test/public").permitAll()
@@ -42,10 +46,20 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET,"/api/trainers").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/trainers/**").permitAll()
 
+                        // Public GET requests - Cross-trainer open slot search
+                        .requestMatchers(HttpMethod.GET, "/api/open-slots").permitAll()
+
                         // Public GET requests - Session Types & Options
                         .requestMatchers(HttpMethod.GET, "/api/session-types/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/session-types").permitAll()
 
+                        // Square webhooks - authenticated by their HMAC signature instead of a JWT
+                        .requestMatchers(HttpMethod.POST, "/api/webhooks/square").permitAll()
+
+                        // Actuator - health for load balancers, everything else (metrics) is admin only
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                         // Everything else needs auth
                         .anyRequest().authenticated()
                 )
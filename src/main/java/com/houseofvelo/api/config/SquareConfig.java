@@ -1,38 +1,44 @@
 package com.houseofvelo.api.config;
 
 
-import com.houseofvelo.api.dto.ProcessPaymentRequest;
 import com.squareup.square.SquareClient;
 import com.squareup.square.core.ClientOptions;
 import com.squareup.square.core.Environment;
-import com.squareup.square.types.CreatePaymentRequest;
-import com.squareup.square.types.CreatePaymentResponse;
-import org.springframework.beans.factory.annotation.Value;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 
 @Configuration
+@RequiredArgsConstructor
 public class SquareConfig {
 
-    @Value("${square.access-token}")
-    private String accessToken;
-
-    @Value("${{square.environment}")
-    private String environment;
+    private final SquareProperties squareProperties;
 
     @Bean
+    @Profile("!square-stub")
     public SquareClient squareClient() {
-        Environment env = "production".equalsIgnoreCase(environment)
+        Environment env = "production".equalsIgnoreCase(squareProperties.getEnvironment())
                 ? Environment.PRODUCTION
                 : Environment.SANDBOX;
 
+        return newClient(env, squareProperties.getAccessToken());
+    }
+
+    // Same client, pointed at the in-process fake Square started by SquareStubServer
+    @Bean
+    @Profile("square-stub")
+    public SquareClient squareStubClient(SquareStubServer squareStubServer) {
+        return newClient(Environment.custom(squareStubServer.getBaseUrl()), "stub-access-token");
+    }
+
+    private static SquareClient newClient(Environment env, String accessToken) {
         ClientOptions options = ClientOptions.builder()
                 .environment(env)
                 .addHeader("Authorization", "Bearer " + accessToken)
                 .build();
 
         return new SquareClient(options);
-
     }
 }
@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.List;
+
 @Component
 @ConfigurationProperties(prefix = "square")
 @Data
@@ -12,4 +15,51 @@ public class SquareProperties {
     private String applicationId;
     private String locationId;
     private String environment;
+
+    // Longest we wait on a single Square API call before treating its outcome as unknown
+    private Duration callTimeout = Duration.ofSeconds(15);
+
+    // Bulkhead: Square calls in flight / waiting for a gateway thread. Beyond that callers get a 503 straight away,
+    // so at most maxConcurrentCalls + maxQueuedCalls request threads can ever be tied up by a slow Square
+    private int maxConcurrentCalls = 16;
+    private int maxQueuedCalls = 32;
+
+    private Breaker breaker = new Breaker();
+
+    // From the webhook subscription in the Square dashboard. Square signs notification URL + body with the key
+    private String webhookSignatureKey;
+    private String webhookNotificationUrl;
+
+    // Circuit breaker around Square calls: timeouts, 5xx and network errors count as failures, declines do not
+    @Data
+    public static class Breaker {
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int trialCalls = 3;
+    }
+
+    // Only read under the square-stub profile (local fake of the Payments and Refunds APIs)
+    private Stub stub = new Stub();
+
+    @Data
+    public static class Stub {
+        // 0 picks a free port
+        private int port = 0;
+
+        // Latency is log-normal, fitted to these two percentiles
+        private long latencyMedianMs = 150;
+        private long latencyP99Ms = 1200;
+
+        // Share of card payments declined, with a code picked at random from declineCodes
+        private double declineRate = 0.05;
+        private List<String> declineCodes = List.of("GENERIC_DECLINE", "INSUFFICIENT_FUNDS", "CARD_EXPIRED", "CVV_FAILURE");
+
+        // Share of calls answered with a 500, and of calls that hang for hangDuration before succeeding
+        // (longer than callTimeout, so the caller sees a timeout while the payment really goes through)
+        private double errorRate = 0.0;
+        private double hangRate = 0.0;
+        private Duration hangDuration = Duration.ofSeconds(20);
+    }
 }
@@ -0,0 +1,315 @@
+package com.houseofvelo.api.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process fake of Square's Payments and Refunds APIs for load tests and offline development
+ * (run with the square-stub profile). SquareConfig points the real SquareClient at it, so the whole
+ * SDK / PaymentService path is exercised - only the network hop to Square is replaced.
+ *
+ * Latency, declines, 500s and hangs are injected at the rates in square.stub.*. A source id can also force
+ * an outcome: "stub:ok", "stub:error", "stub:hang", "stub:decline:CODE", or Square's own sandbox nonces
+ * such as "cnon:card-nonce-declined".
+ */
+@Component
+@Profile("square-stub")
+@Slf4j
+public class SquareStubServer {
+
+    private static final Map<String, String> SANDBOX_DECLINE_NONCES = Map.of(
+            "cnon:card-nonce-declined", "GENERIC_DECLINE",
+            "cnon:card-nonce-rejected-cvv", "CVV_FAILURE",
+            "cnon:card-nonce-rejected-postalcode", "ADDRESS_VERIFICATION_FAILURE",
+            "cnon:card-nonce-rejected-expiration", "INVALID_EXPIRATION"
+    );
+
+    private final SquareProperties.Stub settings;
+    private final ObjectMapper objectMapper;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // Square replays the original response for a repeated idempotency key - so does the stub
+    private final Map<String, StubResponse> responsesByIdempotencyKey = new ConcurrentHashMap<>();
+    private final Map<String, StubPayment> payments = new ConcurrentHashMap<>();
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong declined = new AtomicLong();
+    private final AtomicLong errored = new AtomicLong();
+    private final AtomicLong hung = new AtomicLong();
+    private final AtomicLong refunded = new AtomicLong();
+
+    public SquareStubServer(SquareProperties squareProperties, ObjectMapper objectMapper) throws IOException {
+        this.settings = squareProperties.getStub();
+        this.objectMapper = objectMapper;
+
+        // Injected latency parks a thread per call, so the pool has to be unbounded like real network I/O
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "square-stub-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), settings.getPort()), 0);
+        server.createContext("/v2/payments", this::handlePayments);
+        server.createContext("/v2/refunds", this::handleRefunds);
+        server.setExecutor(executor);
+        server.start();
+
+        log.warn("Square stub listening on {} - no real payments will be taken. Latency p50={}ms p99={}ms, "
+                        + "declineRate={}, errorRate={}, hangRate={}",
+                getBaseUrl(), settings.getLatencyMedianMs(), settings.getLatencyP99Ms(),
+                settings.getDeclineRate(), settings.getErrorRate(), settings.getHangRate());
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @PreDestroy
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        log.info("Square stub stopped. Payments completed={}, declined={}, errored={}, hung={}; refunds={}",
+                completed.get(), declined.get(), errored.get(), hung.get(), refunded.get());
+    }
+
+    // POST /v2/payments creates, GET /v2/payments/{id} reads back
+    private void handlePayments(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            if ("GET".equals(exchange.getRequestMethod()) && path.startsWith("/v2/payments/")) {
+                StubPayment payment = payments.get(path.substring("/v2/payments/".length()));
+                send(exchange, payment == null
+                        ? error(404, "INVALID_REQUEST_ERROR", "NOT_FOUND", "Payment not found")
+                        : new StubResponse(200, paymentBody(payment)));
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, error(405, "INVALID_REQUEST_ERROR", "METHOD_NOT_ALLOWED", "Method not allowed"));
+                return;
+            }
+
+            JsonNode request = readBody(exchange);
+            if (request == null) {
+                send(exchange, error(400, "INVALID_REQUEST_ERROR", "INVALID_VALUE", "Request body is not valid JSON"));
+                return;
+            }
+
+            String idempotencyKey = request.path("idempotency_key").stringValue(null);
+            StubResponse replay = idempotencyKey == null ? null : responsesByIdempotencyKey.get(idempotencyKey);
+            simulateLatency();
+            if (replay != null) {
+                send(exchange, replay);
+                return;
+            }
+
+            StubResponse response = createPayment(request);
+            if (idempotencyKey != null && response.status() != 500) {
+                StubResponse finalResponse = response;
+                response = responsesByIdempotencyKey.computeIfAbsent(idempotencyKey, key -> finalResponse);
+            }
+            send(exchange, response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private StubResponse createPayment(JsonNode request) throws InterruptedException {
+        String sourceId = request.path("source_id").stringValue("");
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        String declineCode = SANDBOX_DECLINE_NONCES.get(sourceId);
+        if (sourceId.startsWith("stub:decline:")) {
+            declineCode = sourceId.substring("stub:decline:".length());
+        }
+        boolean forced = declineCode != null || sourceId.startsWith("stub:");
+
+        if ("stub:error".equals(sourceId) || (!forced && random.nextDouble() < settings.getErrorRate())) {
+            errored.incrementAndGet();
+            return error(500, "API_ERROR", "INTERNAL_SERVER_ERROR", "Injected failure from the Square stub");
+        }
+        if (declineCode == null && !forced && random.nextDouble() < settings.getDeclineRate()) {
+            List<String> codes = settings.getDeclineCodes();
+            declineCode = codes.get(random.nextInt(codes.size()));
+        }
+        if ("stub:hang".equals(sourceId) || (!forced && random.nextDouble() < settings.getHangRate())) {
+            hung.incrementAndGet();
+            Thread.sleep(settings.getHangDuration().toMillis());
+        }
+
+        StubPayment payment = new StubPayment(
+                UUID.randomUUID().toString().replace("-", ""),
+                request.path("amount_money").path("amount").asLong(),
+                request.path("amount_money").path("currency").stringValue("USD"),
+                request.path("reference_id").stringValue(null),
+                declineCode == null ? "COMPLETED" : "FAILED",
+                Instant.now().toString(),
+                new AtomicLong()
+        );
+        payments.put(payment.id(), payment);
+
+        if (declineCode != null) {
+            declined.incrementAndGet();
+            StubResponse decline = error(402, "PAYMENT_METHOD_ERROR", declineCode, "Authorization error: '" + declineCode + "'");
+            ((ObjectNode) decline.body()).set("payment", paymentJson(payment));
+            return decline;
+        }
+        completed.incrementAndGet();
+        return new StubResponse(200, paymentBody(payment));
+    }
+
+    // POST /v2/refunds
+    private void handleRefunds(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, error(405, "INVALID_REQUEST_ERROR", "METHOD_NOT_ALLOWED", "Method not allowed"));
+                return;
+            }
+
+            JsonNode request = readBody(exchange);
+            if (request == null) {
+                send(exchange, error(400, "INVALID_REQUEST_ERROR", "INVALID_VALUE", "Request body is not valid JSON"));
+                return;
+            }
+
+            String idempotencyKey = request.path("idempotency_key").stringValue(null);
+            StubResponse replay = idempotencyKey == null ? null : responsesByIdempotencyKey.get(idempotencyKey);
+            simulateLatency();
+            if (replay != null) {
+                send(exchange, replay);
+                return;
+            }
+
+            StubResponse response = createRefund(request);
+            if (idempotencyKey != null && response.status() != 500) {
+                StubResponse finalResponse = response;
+                response = responsesByIdempotencyKey.computeIfAbsent(idempotencyKey, key -> finalResponse);
+            }
+            send(exchange, response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private StubResponse createRefund(JsonNode request) {
+        if (ThreadLocalRandom.current().nextDouble() < settings.getErrorRate()) {
+            errored.incrementAndGet();
+            return error(500, "API_ERROR", "INTERNAL_SERVER_ERROR", "Injected failure from the Square stub");
+        }
+
+        StubPayment payment = payments.get(request.path("payment_id").stringValue(""));
+        if (payment == null || !"COMPLETED".equals(payment.status())) {
+            return error(404, "INVALID_REQUEST_ERROR", "NOT_FOUND", "Payment not found or not refundable");
+        }
+
+        long amount = request.path("amount_money").path("amount").asLong();
+        long alreadyRefunded = payment.refundedAmount().getAndAdd(amount);
+        if (amount <= 0 || alreadyRefunded + amount > payment.amount()) {
+            payment.refundedAmount().addAndGet(-amount);
+            return error(400, "INVALID_REQUEST_ERROR", "REFUND_AMOUNT_INVALID", "Refund exceeds the remaining payment amount");
+        }
+
+        refunded.incrementAndGet();
+        ObjectNode body = objectMapper.createObjectNode();
+        ObjectNode refund = body.putObject("refund");
+        refund.put("id", UUID.randomUUID().toString().replace("-", ""));
+        refund.put("status", "COMPLETED");
+        refund.put("payment_id", payment.id());
+        refund.put("reason", request.path("reason").stringValue(""));
+        refund.put("created_at", Instant.now().toString());
+        ObjectNode money = refund.putObject("amount_money");
+        money.put("amount", amount);
+        money.put("currency", payment.currency());
+        return new StubResponse(200, body);
+    }
+
+    // Log-normal through the configured median and p99 - the long right tail is what a real gateway looks like
+    private void simulateLatency() throws InterruptedException {
+        double mu = Math.log(Math.max(1, settings.getLatencyMedianMs()));
+        double sigma = Math.max(0, (Math.log(Math.max(1, settings.getLatencyP99Ms())) - mu) / 2.326);
+        long delay = Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+        Thread.sleep(delay);
+    }
+
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            return objectMapper.readTree(body.readAllBytes());
+        } catch (JacksonException e) {
+            return null;
+        }
+    }
+
+    private void send(HttpExchange exchange, StubResponse response) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsString(response.body()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private StubResponse error(int status, String category, String code, String detail) {
+        ObjectNode body = objectMapper.createObjectNode();
+        ObjectNode error = body.putArray("errors").addObject();
+        error.put("category", category);
+        error.put("code", code);
+        error.put("detail", detail);
+        return new StubResponse(status, body);
+    }
+
+    private ObjectNode paymentBody(StubPayment payment) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.set("payment", paymentJson(payment));
+        return body;
+    }
+
+    private ObjectNode paymentJson(StubPayment payment) {
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("id", payment.id());
+        json.put("status", payment.status());
+        json.put("source_type", "CARD");
+        json.put("created_at", payment.createdAt());
+        if (payment.referenceId() != null) {
+            json.put("reference_id", payment.referenceId());
+        }
+        ObjectNode money = json.putObject("amount_money");
+        money.put("amount", payment.amount());
+        money.put("currency", payment.currency());
+        json.put("receipt_url", "https://squareup.com/receipt/preview/" + payment.id());
+        return json;
+    }
+
+    private record StubResponse(int status, JsonNode body) {
+    }
+
+    private record StubPayment(String id, long amount, String currency, String referenceId, String status,
+                               String createdAt, AtomicLong refundedAmount) {
+    }
+}
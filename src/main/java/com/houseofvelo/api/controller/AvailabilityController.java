@@ -4,14 +4,13 @@ import com.houseofvelo.api.dto.AvailabilityResponse;
 import com.houseofvelo.api.dto.CreateAvailabilityRequest;
 import com.houseofvelo.api.dto.UpdateAvailabilityRequest;
 import com.houseofvelo.api.service.AvailabilityService;
+import com.houseofvelo.api.util.AuthenticatedUser;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.apache.coyote.Response;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -26,18 +25,19 @@ public class AvailabilityController {
     // Trainer adds availability slot
     @PostMapping("/me/availability")
     @PreAuthorize("hasRole('TRAINER')")
-    public ResponseEntity<AvailabilityResponse> addAvailability(@Valid @RequestBody CreateAvailabilityRequest request){
-        Long userId = getCurrentUserId();
-        AvailabilityResponse response = availabilityService.addAvailability(userId, request);
+    public ResponseEntity<AvailabilityResponse> addAvailability(
+            AuthenticatedUser user,
+            @Valid @RequestBody CreateAvailabilityRequest request
+    ){
+        AvailabilityResponse response = availabilityService.addAvailability(user.requireTrainerId(), request);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
     // Trainer views own availability
     @GetMapping("/me/availability")
     @PreAuthorize("hasRole('TRAINER')")
-    public ResponseEntity<List<AvailabilityResponse>> getMyAvailability(){
-        Long userId = getCurrentUserId();
-        List<AvailabilityResponse> availability = availabilityService.getMyAvailability(userId);
+    public ResponseEntity<List<AvailabilityResponse>> getMyAvailability(AuthenticatedUser user){
+        List<AvailabilityResponse> availability = availabilityService.getMyAvailability(user.requireTrainerId());
         return ResponseEntity.ok(availability);
     }
 
@@ -52,26 +52,19 @@ public class AvailabilityController {
     @PutMapping("/me/availability/{id}")
     @PreAuthorize("hasRole('TRAINER')")
     public ResponseEntity<AvailabilityResponse> updateAvailability(
+            AuthenticatedUser user,
             @PathVariable Long id,
             @Valid @RequestBody UpdateAvailabilityRequest request
     ) {
-        Long userId = getCurrentUserId();
-        AvailabilityResponse response = availabilityService.updateAvailability(id, userId, request);
+        AvailabilityResponse response = availabilityService.updateAvailability(id, user.requireTrainerId(), request);
         return ResponseEntity.ok(response);
     }
 
     // Trainer deletes availability slot
     @DeleteMapping("/me/availability/{id}")
     @PreAuthorize("hasRole('TRAINER')")
-    public ResponseEntity<Void> deleteAvailability(@PathVariable Long id){
-        Long userId = getCurrentUserId();
-        availabilityService.deleteAvailability(id, userId);
+    public ResponseEntity<Void> deleteAvailability(AuthenticatedUser user, @PathVariable Long id){
+        availabilityService.deleteAvailability(id, user.requireTrainerId());
         return ResponseEntity.noContent().build();
     }
-
-    // Helper method
-    private Long getCurrentUserId(){
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        return (Long) auth.getCredentials();
-    }
 }
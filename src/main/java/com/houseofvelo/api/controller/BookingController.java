@@ -1,19 +1,26 @@
 package com.houseofvelo.api.controller;
 
+import com.houseofvelo.api.dto.BookingPageResponse;
 import com.houseofvelo.api.dto.BookingResponse;
+import com.houseofvelo.api.dto.BookingSearchFilter;
 import com.houseofvelo.api.dto.CancelBookingRequest;
 import com.houseofvelo.api.dto.CreateBookingRequest;
+import com.houseofvelo.api.dto.RecurringBookingRequest;
+import com.houseofvelo.api.dto.RecurringBookingResponse;
 import com.houseofvelo.api.model.BookingStatus;
+import com.houseofvelo.api.service.BookingAdmissionService;
+import com.houseofvelo.api.service.BookingCompletionJob;
 import com.houseofvelo.api.service.BookingService;
-import com.houseofvelo.api.service.TrainerService;
+import com.houseofvelo.api.util.AuthenticatedUser;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -21,7 +28,8 @@ import java.util.List;
 public class BookingController {
 
     private final BookingService bookingService;
-    private final TrainerService trainerService;
+    private final BookingAdmissionService bookingAdmissionService;
+    private final BookingCompletionJob bookingCompletionJob;
 
     // ======================= USER ENDPOINTS =======================
 
@@ -31,22 +39,34 @@ public class BookingController {
     @PostMapping("/api/bookings")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<BookingResponse> createBooking(
-            Authentication authentication,
+            AuthenticatedUser user,
             @Valid @RequestBody CreateBookingRequest request
     ) {
-        Long userId = (Long) authentication.getCredentials();
-        BookingResponse booking = bookingService.createBooking(userId, request);
+        BookingResponse booking = bookingAdmissionService.createBooking(user.userId(), request);
         return new ResponseEntity<>(booking, HttpStatus.CREATED);
     }
 
+    /**
+     * Book a weekly series of sessions. Reports each occurrence as CREATED, CONFLICT or UNAVAILABLE
+     */
+    @PostMapping("/api/bookings/recurring")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<RecurringBookingResponse> createRecurringBookings(
+            AuthenticatedUser user,
+            @Valid @RequestBody RecurringBookingRequest request
+    ) {
+        RecurringBookingResponse response = bookingAdmissionService.createRecurringBookings(user.userId(), request);
+        HttpStatus status = response.getCreated() > 0 ? HttpStatus.CREATED : HttpStatus.CONFLICT;
+        return new ResponseEntity<>(response, status);
+    }
+
     /**
      * Get all my bookings
      */
     @GetMapping("/api/bookings/me")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<BookingResponse>> getMyBookings(Authentication authentication) {
-        Long userId = (Long) authentication.getCredentials();
-        List<BookingResponse> bookings = bookingService.getUserBookings(userId);
+    public ResponseEntity<List<BookingResponse>> getMyBookings(AuthenticatedUser user) {
+        List<BookingResponse> bookings = bookingService.getUserBookings(user.userId());
         return ResponseEntity.ok(bookings);
     }
 
@@ -55,9 +75,8 @@ public class BookingController {
      */
     @GetMapping("/api/bookings/me/upcoming")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<BookingResponse>> getMyUpcomingBookings(Authentication authentication) {
-        Long userId = (Long) authentication.getCredentials();
-        List<BookingResponse> bookings = bookingService.getUserUpcomingBookings(userId);
+    public ResponseEntity<List<BookingResponse>> getMyUpcomingBookings(AuthenticatedUser user) {
+        List<BookingResponse> bookings = bookingService.getUserUpcomingBookings(user.userId());
         return ResponseEntity.ok(bookings);
     }
 
@@ -68,10 +87,9 @@ public class BookingController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<BookingResponse> getBookingById(
             @PathVariable Long id,
-            Authentication authentication
+            AuthenticatedUser user
     ) {
-        Long userId = (Long) authentication.getCredentials();
-        BookingResponse booking = bookingService.getBookingById(id, userId);
+        BookingResponse booking = bookingService.getBookingById(id, user.userId());
         return ResponseEntity.ok(booking);
     }
 
@@ -82,17 +100,15 @@ public class BookingController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<BookingResponse> cancelBooking(
             @PathVariable Long id,
-            Authentication authentication,
+            AuthenticatedUser user,
             @RequestBody(required = false) CancelBookingRequest request
     ) {
-        Long userId = (Long) authentication.getCredentials();
-
         // If no request body, create empty one
         if (request == null) {
             request = new CancelBookingRequest();
         }
 
-        BookingResponse booking = bookingService.cancelBooking(id, userId, request);
+        BookingResponse booking = bookingService.cancelBooking(id, user.userId(), request);
         return ResponseEntity.ok(booking);
     }
 
@@ -103,10 +119,8 @@ public class BookingController {
      */
     @GetMapping("/api/trainers/me/bookings")
     @PreAuthorize("hasRole('TRAINER')")
-    public ResponseEntity<List<BookingResponse>> getMyTrainerBookings(Authentication authentication) {
-        Long userId = (Long) authentication.getCredentials();
-        Long trainerId = trainerService.getTrainerIdByUserId(userId);
-        List<BookingResponse> bookings = bookingService.getTrainerBookings(trainerId);
+    public ResponseEntity<List<BookingResponse>> getMyTrainerBookings(AuthenticatedUser user) {
+        List<BookingResponse> bookings = bookingService.getTrainerBookings(user.requireTrainerId());
         return ResponseEntity.ok(bookings);
     }
 
@@ -115,10 +129,8 @@ public class BookingController {
      */
     @GetMapping("/api/trainers/me/bookings/upcoming")
     @PreAuthorize("hasRole('TRAINER')")
-    public ResponseEntity<List<BookingResponse>> getMyTrainerUpcomingBookings(Authentication authentication) {
-        Long userId = (Long) authentication.getCredentials();
-        Long trainerId = trainerService.getTrainerIdByUserId(userId);
-        List<BookingResponse> bookings = bookingService.getTrainerUpcomingBookings(trainerId);
+    public ResponseEntity<List<BookingResponse>> getMyTrainerUpcomingBookings(AuthenticatedUser user) {
+        List<BookingResponse> bookings = bookingService.getTrainerUpcomingBookings(user.requireTrainerId());
         return ResponseEntity.ok(bookings);
     }
 
@@ -129,11 +141,9 @@ public class BookingController {
     @PreAuthorize("hasRole('TRAINER')")
     public ResponseEntity<BookingResponse> markNoShow(
             @PathVariable Long id,
-            Authentication authentication
+            AuthenticatedUser user
     ) {
-        Long userId = (Long) authentication.getCredentials();
-        Long trainerId = trainerService.getTrainerIdByUserId(userId);
-        BookingResponse booking = bookingService.markNoShow(id, trainerId);
+        BookingResponse booking = bookingService.markNoShow(id, user.requireTrainerId());
         return ResponseEntity.ok(booking);
     }
 
@@ -157,6 +167,29 @@ public class BookingController {
         return ResponseEntity.ok(bookings);
     }
 
+    /**
+     * Search bookings (admin) - keyset paginated, newest first
+     */
+    @GetMapping("/api/admin/bookings/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BookingPageResponse> searchBookings(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long trainerId,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long playerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Boolean payInPerson,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        BookingStatus bookingStatus = status != null ? BookingStatus.valueOf(status.toUpperCase()) : null;
+        BookingSearchFilter filter = new BookingSearchFilter(bookingStatus, trainerId, userId, playerId, from, to, payInPerson);
+
+        BookingPageResponse page = bookingService.searchBookings(filter, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Update booking status (admin override)
      */
@@ -187,7 +220,10 @@ public class BookingController {
     @PostMapping("/api/admin/bookings/auto-complete")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<String> triggerAutoComplete() {
-        int completed = bookingService.autoCompleteOldBookings();
+        int completed = bookingCompletionJob.run();
+        if (completed < 0) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Auto-complete job is already running");
+        }
         return ResponseEntity.ok(completed + " bookings auto-completed");
     }
 }
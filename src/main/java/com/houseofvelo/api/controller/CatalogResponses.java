@@ -0,0 +1,22 @@
+package com.houseofvelo.api.controller;
+
+import com.houseofvelo.api.service.CatalogCache.CachedBody;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+// Cached catalog body as a response. Spring MVC compares the ETag with If-None-Match and answers 304 without the body
+final class CatalogResponses {
+
+    private CatalogResponses() {
+    }
+
+    static ResponseEntity<byte[]> of(CachedBody cached) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(cached.etag())
+                // Clients may keep the body but must revalidate, so admin edits show up on the next request
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .body(cached.body());
+    }
+}
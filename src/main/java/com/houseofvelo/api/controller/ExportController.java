@@ -0,0 +1,59 @@
+package com.houseofvelo.api.controller;
+
+import com.houseofvelo.api.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/admin/exports")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
+    private final ExportService exportService;
+
+    /**
+     * Admin: stream every booking as NDJSON (default) or CSV
+     */
+    @GetMapping("/bookings")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        ExportService.Format exportFormat = ExportService.Format.valueOf(format.toUpperCase());
+        StreamingResponseBody body = out -> exportService.exportBookings(out, exportFormat);
+        return streamed("bookings", exportFormat, body);
+    }
+
+    /**
+     * Admin: stream every payment as NDJSON (default) or CSV
+     */
+    @GetMapping("/payments")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        ExportService.Format exportFormat = ExportService.Format.valueOf(format.toUpperCase());
+        StreamingResponseBody body = out -> exportService.exportPayments(out, exportFormat);
+        return streamed("payments", exportFormat, body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamed(String name, ExportService.Format format, StreamingResponseBody body) {
+        boolean csv = format == ExportService.Format.CSV;
+        String filename = name + "-" + LocalDate.now() + (csv ? ".csv" : ".ndjson");
+
+        return ResponseEntity.ok()
+                .contentType(csv ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,57 @@
+package com.houseofvelo.api.controller;
+
+import com.houseofvelo.api.dto.OpenSlotResponse;
+import com.houseofvelo.api.model.Sport;
+import com.houseofvelo.api.service.OpenSlotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class OpenSlotController {
+
+    private static final int DEFAULT_RANGE_DAYS = 90;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+
+    private final OpenSlotService openSlotService;
+
+    /**
+     * Public: bookable start times for one trainer (defaults to today through the booking horizon)
+     */
+    @GetMapping("/api/trainers/{trainerId}/open-slots")
+    public ResponseEntity<List<OpenSlotResponse>> getOpenSlots(
+            @PathVariable Long trainerId,
+            @RequestParam Long sessionTypeOptionId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusDays(DEFAULT_RANGE_DAYS);
+
+        List<OpenSlotResponse> slots = openSlotService.getOpenSlots(trainerId, start, end, sessionTypeOptionId);
+        return ResponseEntity.ok(slots);
+    }
+
+    /**
+     * Public: soonest open slots across all active trainers, optionally filtered by sport
+     */
+    @GetMapping("/api/open-slots")
+    public ResponseEntity<List<OpenSlotResponse>> searchOpenSlots(
+            @RequestParam Long sessionTypeId,
+            @RequestParam(required = false) Sport sport,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "" + DEFAULT_SEARCH_LIMIT) int limit
+    ) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusDays(DEFAULT_RANGE_DAYS);
+
+        List<OpenSlotResponse> slots = openSlotService.searchOpenSlots(sessionTypeId, sport, start, end, limit);
+        return ResponseEntity.ok(slots);
+    }
+}
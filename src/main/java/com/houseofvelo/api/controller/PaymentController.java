@@ -5,11 +5,11 @@ import com.houseofvelo.api.dto.ProcessPaymentRequest;
 import com.houseofvelo.api.dto.ReceivePaymentRequest;
 import com.houseofvelo.api.dto.RefundRequest;
 import com.houseofvelo.api.service.PaymentService;
+import com.houseofvelo.api.util.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import org.apache.coyote.Response;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
@@ -26,57 +26,52 @@ public class PaymentController {
     @PostMapping
     @PreAuthorize("hasAnyRole('PARENT', 'PLAYER')")
     public ResponseEntity<PaymentResponse> processPayment(
-            Authentication authentication,
+            AuthenticatedUser user,
             @RequestBody ProcessPaymentRequest request
             ){
-        Long userId = (Long) authentication.getCredentials();
-        PaymentResponse response = paymentService.processPayment(request, userId);
+        PaymentResponse response = paymentService.processPayment(request, user.userId());
         return ResponseEntity.ok(response);
     }
 
     @GetMapping
     @PreAuthorize("hasAnyRole('PARENT', 'PLAYER')")
     public ResponseEntity<List<PaymentResponse>> getMyPayments(
-            Authentication authentication
+            AuthenticatedUser user
     ){
-        Long userId = (Long) authentication.getCredentials();
-        List<PaymentResponse> payments = paymentService.getMyPayments(userId);
+        List<PaymentResponse> payments = paymentService.getMyPayments(user.userId());
         return ResponseEntity.ok(payments);
     }
 
     @GetMapping("/booking/{bookingId}")
     @PreAuthorize("hasAnyRole('PARENT','PLAYER')")
     public ResponseEntity<PaymentResponse> getPaymentByBooking(
-            Authentication authentication,
+            AuthenticatedUser user,
             @PathVariable Long bookingId
     ) {
-        Long userId = (Long) authentication.getCredentials();
-        PaymentResponse payment = paymentService.getPaymentByBooking(bookingId, userId);
+        PaymentResponse payment = paymentService.getPaymentByBooking(bookingId, user.userId());
         return ResponseEntity.ok(payment);
     }
 
     @PutMapping("/{paymentId}/receive")
     @PreAuthorize("hasAnyRole('TRAINER','ADMIN')")
     public ResponseEntity<PaymentResponse> receivePayment(
-            Authentication authentication,
+            AuthenticatedUser user,
             @PathVariable Long paymentId,
             @RequestBody
             ReceivePaymentRequest request
     ){
-        Long userId = (Long) authentication.getCredentials();
-        PaymentResponse response = paymentService.receivePayment(paymentId, request.getMethod(), userId);
+        PaymentResponse response = paymentService.receivePayment(paymentId, request.getMethod(), user.userId());
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/{paymentId}/refund")
     @PreAuthorize("hasAnyRole('ADMIN','TRAINER')")
     public ResponseEntity<PaymentResponse> refundPayment(
-            Authentication authentication,
+            AuthenticatedUser user,
             @PathVariable Long paymentId,
             @RequestBody RefundRequest request
     ){
-        Long userId = (Long) authentication.getCredentials();
-        PaymentResponse response = paymentService.refundPayment(paymentId, request.getReason(), userId);
+        PaymentResponse response = paymentService.refundPayment(paymentId, request.getReason(), user.userId());
         return ResponseEntity.ok(response);
     }
 
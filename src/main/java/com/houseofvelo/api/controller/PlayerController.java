@@ -4,13 +4,12 @@ import com.houseofvelo.api.dto.CreatePlayerRequest;
 import com.houseofvelo.api.dto.PlayerResponse;
 import com.houseofvelo.api.dto.UpdatePlayerRequest;
 import com.houseofvelo.api.service.PlayerService;
+import com.houseofvelo.api.util.AuthenticatedUser;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;  // ← At the top
 
@@ -26,51 +25,41 @@ public class PlayerController {
 
     @PostMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<PlayerResponse> createPlayer(@Valid @RequestBody CreatePlayerRequest request){
-        Long userId = getCurrentUserId();
-        PlayerResponse response = playerService.createPlayer(request, userId);
+    public ResponseEntity<PlayerResponse> createPlayer(AuthenticatedUser user, @Valid @RequestBody CreatePlayerRequest request){
+        PlayerResponse response = playerService.createPlayer(request, user.userId());
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<PlayerResponse>> getMyPlayers() {
-        Long userId = getCurrentUserId();
-        List<PlayerResponse> players = playerService.getMyPlayers(userId);
+    public ResponseEntity<List<PlayerResponse>> getMyPlayers(AuthenticatedUser user) {
+        List<PlayerResponse> players = playerService.getMyPlayers(user.userId(), user.role());
         return ResponseEntity.ok(players);
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<PlayerResponse> getPlayerById(@PathVariable Long id){
-        Long userId = getCurrentUserId();
-        PlayerResponse player = playerService.getPlayerById(id, userId);
+    public ResponseEntity<PlayerResponse> getPlayerById(AuthenticatedUser user, @PathVariable Long id){
+        PlayerResponse player = playerService.getPlayerById(id, user.userId());
         return ResponseEntity.ok(player);
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<PlayerResponse> updatePlayer(
+            AuthenticatedUser user,
             @PathVariable Long id,
             @Valid @RequestBody UpdatePlayerRequest request
     ){
-        Long userId = getCurrentUserId();
-        PlayerResponse player = playerService.updatePlayer(id, request, userId);
+        PlayerResponse player = playerService.updatePlayer(id, request, user.userId());
         return ResponseEntity.ok(player);
     }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Void> deletePlayer(@PathVariable Long id){
-        Long userId = getCurrentUserId();
-        playerService.deletePlayer(id, userId);
+    public ResponseEntity<Void> deletePlayer(AuthenticatedUser user, @PathVariable Long id){
+        playerService.deletePlayer(id, user.userId());
         return ResponseEntity.noContent().build();
     }
 
-    // Helper method to get current user's ID from JWT
-    private Long getCurrentUserId() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        return (Long) auth.getCredentials();
-    }
-
 }
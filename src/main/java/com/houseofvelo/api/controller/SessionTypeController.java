@@ -2,6 +2,7 @@ package com.houseofvelo.api.controller;
 
 import com.houseofvelo.api.dto.*;
 import com.houseofvelo.api.model.SessionType;
+import com.houseofvelo.api.service.CatalogCache;
 import com.houseofvelo.api.service.SessionTypeOptionService;
 import com.houseofvelo.api.service.SessionTypeService;
 import jakarta.validation.Valid;
@@ -22,21 +23,20 @@ public class SessionTypeController {
 
     private final SessionTypeService sessionTypeService;
     private final SessionTypeOptionService optionService;
+    private final CatalogCache catalogCache;
 
     // ======================= SESSION TYPES =======================
 
     // PUBLIC: Get all active session types
     @GetMapping("/api/session-types")
-    public ResponseEntity<List<SessionTypeResponse>> getAllActiveSessionTypes() {
-        List<SessionTypeResponse> sessionTypes = sessionTypeService.getAllActiveSessionTypes();
-        return ResponseEntity.ok(sessionTypes);
+    public ResponseEntity<byte[]> getAllActiveSessionTypes() {
+        return CatalogResponses.of(catalogCache.get(CatalogCache.SESSION_TYPES, sessionTypeService::getAllActiveSessionTypes));
     }
 
     // PUBLIC: Get specific session type (includes options)
     @GetMapping("/api/session-types/{id}")
-    public ResponseEntity<SessionTypeResponse> getSessionTypeById(@PathVariable Long id){
-        SessionTypeResponse sessionType = sessionTypeService.getSessionTypeById(id);
-        return ResponseEntity.ok(sessionType);
+    public ResponseEntity<byte[]> getSessionTypeById(@PathVariable Long id){
+        return CatalogResponses.of(catalogCache.get(CatalogCache.sessionType(id), () -> sessionTypeService.getSessionTypeById(id)));
     }
 
     // ADMIN: Get all session types (including inactive)
@@ -78,9 +78,8 @@ public class SessionTypeController {
 
     // PUBLIC: get active options for a session type
     @GetMapping("/api/session-types/{sessionTypeId}/options")
-    public ResponseEntity<List<SessionTypeOptionResponse>> getActiveOptions(@PathVariable Long sessionTypeId){
-        List<SessionTypeOptionResponse> options = optionService.getActiveOptions(sessionTypeId);
-        return ResponseEntity.ok(options);
+    public ResponseEntity<byte[]> getActiveOptions(@PathVariable Long sessionTypeId){
+        return CatalogResponses.of(catalogCache.get(CatalogCache.sessionTypeOptions(sessionTypeId), () -> optionService.getActiveOptions(sessionTypeId)));
     }
 
     // PUBLIC: get specific option
@@ -2,16 +2,22 @@ package com.houseofvelo.api.controller;
 
 import com.houseofvelo.api.dto.SubscriptionRequest;
 import com.houseofvelo.api.dto.SubscriptionResponse;
+import com.houseofvelo.api.dto.TokenLedgerRebuildResponse;
+import com.houseofvelo.api.dto.TokenTransactionResponse;
+import com.houseofvelo.api.model.Role;
 import com.houseofvelo.api.model.Subscription;
 import com.houseofvelo.api.repository.SubscriptionRepository;
 import com.houseofvelo.api.service.SubscriptionService;
+import com.houseofvelo.api.service.TokenLedgerService;
+import com.houseofvelo.api.util.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -20,32 +26,55 @@ import java.util.List;
 public class SubscriptionController {
 
     private final SubscriptionService subscriptionService;
+    private final TokenLedgerService tokenLedgerService;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('PARENT','PLAYER')")
     public ResponseEntity<SubscriptionResponse> createSubscription(
-            Authentication authentication,
+            AuthenticatedUser user,
             @RequestBody SubscriptionRequest request
             ){
-        Long userId = (Long) authentication.getCredentials();
-        SubscriptionResponse response = subscriptionService.createSubscription(request, userId);
+        SubscriptionResponse response = subscriptionService.createSubscription(request, user.userId(), user.playerIds());
 
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @GetMapping("/active")
     @PreAuthorize("hasAnyRole('PARENT','PLAYER')")
-    public ResponseEntity<List<SubscriptionResponse>> getActiveSubscriptions(Authentication authentication) {
-        Long userId = (Long) authentication.getCredentials();
-        List<SubscriptionResponse> subscriptions = subscriptionService.getActiveSubscriptions(userId);
+    public ResponseEntity<List<SubscriptionResponse>> getActiveSubscriptions(AuthenticatedUser user) {
+        List<SubscriptionResponse> subscriptions = subscriptionService.getActiveSubscriptions(user.userId());
         return ResponseEntity.ok(subscriptions);
     }
 
     @GetMapping
     @PreAuthorize("hasAnyRole('PARENT', 'PLAYER')")
-    public ResponseEntity<List<SubscriptionResponse>> getMySubscriptions(Authentication authentication) {
-        Long userId = (Long) authentication.getCredentials();
-        List<SubscriptionResponse> subscriptions = subscriptionService.getMySubscriptions(userId);
+    public ResponseEntity<List<SubscriptionResponse>> getMySubscriptions(AuthenticatedUser user) {
+        List<SubscriptionResponse> subscriptions = subscriptionService.getMySubscriptions(user.userId());
         return ResponseEntity.ok(subscriptions);
     }
+
+    // Token movements for one subscription, oldest first. Defaults to the last 90 days
+    @GetMapping("/{id}/ledger")
+    @PreAuthorize("hasAnyRole('PARENT', 'PLAYER', 'ADMIN')")
+    public ResponseEntity<List<TokenTransactionResponse>> getLedger(
+            AuthenticatedUser user,
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(90);
+        List<TokenTransactionResponse> history = tokenLedgerService.getHistory(
+                id, start, end, user.userId(), user.role() == Role.ADMIN);
+        return ResponseEntity.ok(history);
+    }
+
+    /**
+     * Re-derive every subscription's token balance from the ledger (admin only)
+     */
+    @PostMapping("/ledger/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TokenLedgerRebuildResponse> rebuildTokenBalances() {
+        return ResponseEntity.ok(tokenLedgerService.rebuildBalances());
+    }
 }
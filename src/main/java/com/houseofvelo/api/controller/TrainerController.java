@@ -4,15 +4,15 @@ import com.houseofvelo.api.dto.CreateTrainerRequest;
 import com.houseofvelo.api.dto.TrainerResponse;
 import com.houseofvelo.api.dto.UpdateTrainerRequest;
 import com.houseofvelo.api.model.Trainer;
+import com.houseofvelo.api.service.CatalogCache;
 import com.houseofvelo.api.service.TrainerService;
+import com.houseofvelo.api.util.AuthenticatedUser;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.apache.coyote.Response;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -23,49 +23,39 @@ import java.util.List;
 public class TrainerController {
 
     private final TrainerService trainerService;
+    private final CatalogCache catalogCache;
 
     // Public endpoint - anyone can view all trainers
     @GetMapping()
-    public ResponseEntity<List<TrainerResponse>> getAllTrainers() {
-        List<TrainerResponse> trainers = trainerService.getAllTrainers();
-        return ResponseEntity.ok(trainers);
+    public ResponseEntity<byte[]> getAllTrainers() {
+        return CatalogResponses.of(catalogCache.get(CatalogCache.TRAINERS, trainerService::getAllTrainers));
     }
 
     // Public endpoint - anyone can view specific trainer
     @GetMapping("/{id}")
-    public ResponseEntity<TrainerResponse> getTrainerById(@PathVariable Long id){
-        TrainerResponse trainer = trainerService.getTrainerById(id);
-        return ResponseEntity.ok(trainer);
+    public ResponseEntity<byte[]> getTrainerById(@PathVariable Long id){
+        return CatalogResponses.of(catalogCache.get(CatalogCache.trainer(id), () -> trainerService.getTrainerById(id)));
     }
 
     // Protected endpoint - trainer views own profile
     @GetMapping("/me")
-    public ResponseEntity<TrainerResponse> getMyProfile() {
-        Long userId = getCurrentUserId();
-        TrainerResponse trainer = trainerService.getMyProfile(userId);
+    public ResponseEntity<TrainerResponse> getMyProfile(AuthenticatedUser user) {
+        TrainerResponse trainer = trainerService.getMyProfile(user.userId());
         return ResponseEntity.ok(trainer);
     }
 
     // Protected endpoint - trainer updates own profile
     @PutMapping("/me")
-    public ResponseEntity<TrainerResponse> updateMyProfile(@Valid @RequestBody UpdateTrainerRequest request) {
-        Long userId = getCurrentUserId();
-        TrainerResponse trainer = trainerService.updateMyProfile(userId, request);
+    public ResponseEntity<TrainerResponse> updateMyProfile(AuthenticatedUser user, @Valid @RequestBody UpdateTrainerRequest request) {
+        TrainerResponse trainer = trainerService.updateMyProfile(user.userId(), request);
         return ResponseEntity.ok(trainer);
     }
 
     @PostMapping
     @PreAuthorize("hasRole('TRAINER')")
-    public ResponseEntity<TrainerResponse> createTrainer(@Valid @RequestBody CreateTrainerRequest request){
-        Long userId = getCurrentUserId();
-        TrainerResponse trainer = trainerService.createTrainer(request, userId);
+    public ResponseEntity<TrainerResponse> createTrainer(AuthenticatedUser user, @Valid @RequestBody CreateTrainerRequest request){
+        TrainerResponse trainer = trainerService.createTrainer(request, user.userId());
         return new ResponseEntity<>(trainer, HttpStatus.CREATED);
     }
 
-    // Helper method to get current users id from JWT
-    private Long getCurrentUserId() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        return (Long) auth.getCredentials();
-    }
-
 }
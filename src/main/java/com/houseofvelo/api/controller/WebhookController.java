@@ -0,0 +1,27 @@
+package com.houseofvelo.api.controller;
+
+import com.houseofvelo.api.service.SquareWebhookService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/webhooks")
+@RequiredArgsConstructor
+public class WebhookController {
+
+    private final SquareWebhookService squareWebhookService;
+
+    /**
+     * Public (signature-verified): Square payment / refund notifications. Stored and acknowledged immediately,
+     * applied in the background
+     */
+    @PostMapping("/square")
+    public ResponseEntity<Void> receiveSquareWebhook(
+            @RequestHeader(value = "x-square-hmacsha256-signature", required = false) String signature,
+            @RequestBody byte[] body
+    ) {
+        squareWebhookService.receive(body, signature);
+        return ResponseEntity.ok().build();
+    }
+}
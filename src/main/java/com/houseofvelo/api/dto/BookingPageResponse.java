@@ -0,0 +1,17 @@
+package com.houseofvelo.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPageResponse {
+
+    private List<BookingResponse> bookings;
+    private String nextCursor;  // pass back as ?cursor= for the next page, null on the last page
+    private boolean hasMore;
+}
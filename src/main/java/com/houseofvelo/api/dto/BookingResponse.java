@@ -27,6 +27,7 @@ public class BookingResponse {
     private LocalDateTime scheduledAt;
     private Integer durationMinutes;
     private BookingStatus status;
+    private LocalDateTime holdExpiresAt;
     private BigDecimal pricePaid;
     private String notes;
     private LocalDateTime createdAt;
@@ -58,6 +59,7 @@ public class BookingResponse {
         response.setScheduledAt(booking.getScheduledAt());
         response.setDurationMinutes(booking.getDurationMinutes());
         response.setStatus(booking.getStatus());
+        response.setHoldExpiresAt(booking.getHoldExpiresAt());
         response.setPricePaid(booking.getPricePaid());
         response.setNotes(booking.getNotes());
         response.setCreatedAt(booking.getCreatedAt());
@@ -0,0 +1,23 @@
+package com.houseofvelo.api.dto;
+
+import com.houseofvelo.api.model.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSearchFilter {
+
+    // Every field is optional - null means "don't filter on it"
+    private BookingStatus status;
+    private Long trainerId;
+    private Long userId;
+    private Long playerId;
+    private LocalDateTime from;   // scheduledAt >= from
+    private LocalDateTime to;     // scheduledAt < to
+    private Boolean payInPerson;
+}
@@ -0,0 +1,18 @@
+package com.houseofvelo.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OpenSlotResponse {
+
+    private Long trainerId;
+    private String trainerName;
+    private LocalDateTime startsAt;
+    private LocalDateTime endsAt;
+}
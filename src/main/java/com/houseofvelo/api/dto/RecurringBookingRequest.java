@@ -0,0 +1,49 @@
+package com.houseofvelo.api.dto;
+
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+// A weekly pattern: the same time on each of daysOfWeek, starting at startDate, until occurrences sessions are placed
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecurringBookingRequest {
+
+    @NotNull(message = "Session type option is required")
+    private Long sessionTypeOptionId;
+
+    @NotNull(message = "Trainer is required")
+    private Long trainerId;
+
+    @NotNull(message = "Start date is required")
+    @FutureOrPresent(message = "Start date must not be in the past")
+    private LocalDate startDate;
+
+    @NotEmpty(message = "At least one day of the week is required")
+    private Set<DayOfWeek> daysOfWeek;
+
+    @NotNull(message = "Start time is required")
+    private LocalTime startTime;
+
+    @NotNull(message = "Number of sessions is required")
+    @Min(value = 1, message = "At least one session is required")
+    @Max(value = 26, message = "At most 26 sessions can be booked at once")
+    private Integer occurrences;
+
+    // Optional: if parent is booking for player
+    private Long playerId;
+
+    // Optional: Notes (copied to every session)
+    private String notes;
+}
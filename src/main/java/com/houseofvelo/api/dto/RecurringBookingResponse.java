@@ -0,0 +1,32 @@
+package com.houseofvelo.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+public class RecurringBookingResponse {
+    private int requested;
+    private int created;
+    private int rejected;
+    private List<Occurrence> occurrences;
+
+    public enum OccurrenceStatus {
+        CREATED,
+        CONFLICT,    // the trainer is already booked at that time
+        UNAVAILABLE  // outside the trainer's hours or the booking window
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Occurrence {
+        private LocalDateTime scheduledAt;
+        private OccurrenceStatus status;
+        private Long bookingId; // CREATED only
+        private String message; // why it was rejected
+    }
+}
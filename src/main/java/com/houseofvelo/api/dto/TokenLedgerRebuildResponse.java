@@ -0,0 +1,20 @@
+package com.houseofvelo.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome of TokenLedgerService.rebuildBalances
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenLedgerRebuildResponse {
+    private long entriesScanned;
+    private long subscriptionsChecked;
+    // Rows whose balanceAfter does not follow from the rows before them
+    private long brokenChains;
+    private long balancesCorrected;
+    // Drifted, but changed again while the rebuild ran - picked up by the next rebuild
+    private long balancesSkipped;
+    private long durationMs;
+}
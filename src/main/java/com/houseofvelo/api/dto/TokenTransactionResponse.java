@@ -0,0 +1,34 @@
+package com.houseofvelo.api.dto;
+
+import com.houseofvelo.api.model.TokenTransaction;
+import com.houseofvelo.api.model.TokenTransactionType;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class TokenTransactionResponse {
+    private Long id;
+    private Long subscriptionId;
+    private Long bookingId;
+    private TokenTransactionType type;
+    private Integer amount;
+    private Integer balanceAfter;
+    private String notes;
+    private LocalDateTime createdAt;
+
+    public static TokenTransactionResponse fromTokenTransaction(TokenTransaction transaction) {
+        return TokenTransactionResponse.builder()
+                .id(transaction.getId())
+                .subscriptionId(transaction.getSubscription().getId())
+                .bookingId(transaction.getBooking() != null ? transaction.getBooking().getId() : null)
+                .type(transaction.getType())
+                .amount(transaction.getAmount())
+                .balanceAfter(transaction.getBalanceAfter())
+                .notes(transaction.getNotes())
+                .createdAt(transaction.getCreatedAt())
+                .build();
+    }
+}
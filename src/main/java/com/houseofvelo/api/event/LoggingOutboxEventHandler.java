@@ -0,0 +1,31 @@
+package com.houseofvelo.api.event;
+
+import com.houseofvelo.api.model.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+// Audit trail of every domain event - the simplest handler, and a template for real ones
+@Component
+@Slf4j
+public class LoggingOutboxEventHandler implements OutboxEventHandler {
+
+    @Override
+    public Set<String> eventTypes() {
+        return Set.of(
+                OutboxEventTypes.BOOKING_CREATED,
+                OutboxEventTypes.BOOKING_CANCELLED,
+                OutboxEventTypes.PAYMENT_COMPLETED,
+                OutboxEventTypes.PAYMENT_REFUNDED,
+                OutboxEventTypes.TOKEN_USED,
+                OutboxEventTypes.TOKEN_RETURNED
+        );
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        log.info("Domain event {} #{} for {} {}", event.getEventType(), event.getId(),
+                event.getAggregateType(), event.getAggregateId());
+    }
+}
@@ -0,0 +1,19 @@
+package com.houseofvelo.api.event;
+
+import com.houseofvelo.api.model.OutboxEvent;
+
+import java.util.Set;
+
+/**
+ * A side effect of a domain change (email, calendar sync, analytics). Any Spring bean implementing this is picked
+ * up by OutboxRelay. Delivery is at-least-once, so a handler must tolerate seeing the same event id twice.
+ * Throwing schedules a retry with backoff. Handlers run inside the relay's claim transaction, so they should do
+ * their external work (mail, HTTP) and leave database writes to the code that produced the event.
+ */
+public interface OutboxEventHandler {
+
+    // Event types from OutboxEventTypes this handler wants
+    Set<String> eventTypes();
+
+    void handle(OutboxEvent event);
+}
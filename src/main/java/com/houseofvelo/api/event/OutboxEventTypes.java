@@ -0,0 +1,15 @@
+package com.houseofvelo.api.event;
+
+// Event types written to the outbox. Handlers subscribe to these names, so treat them as a public contract
+public final class OutboxEventTypes {
+
+    public static final String BOOKING_CREATED = "booking.created";
+    public static final String BOOKING_CANCELLED = "booking.cancelled";
+    public static final String PAYMENT_COMPLETED = "payment.completed";
+    public static final String PAYMENT_REFUNDED = "payment.refunded";
+    public static final String TOKEN_USED = "subscription.token_used";
+    public static final String TOKEN_RETURNED = "subscription.token_returned";
+
+    private OutboxEventTypes() {
+    }
+}
@@ -5,6 +5,7 @@ import com.houseofvelo.api.model.User;
 import lombok.Getter;
 import org.apache.coyote.Response;
 import org.springframework.cglib.core.Local;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -141,6 +142,16 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException ex) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(PaymentFailedException.class)
     public ResponseEntity<Map<String, Object>> handlePaymentFailed(PaymentFailedException ex){
         Map<String, Object> error = new HashMap<>();
@@ -150,6 +161,40 @@ public class GlobalExceptionHandler {
     }
 
 
+    @ExceptionHandler(InvalidWebhookSignatureException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidWebhookSignature(InvalidWebhookSignatureException ex) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.UNAUTHORIZED.value(),
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
+    }
+
+    // The gateway did not answer in time - the charge may still go through, so this is not a failure
+    @ExceptionHandler(PaymentPendingException.class)
+    public ResponseEntity<ErrorResponse> handlePaymentPending(PaymentPendingException ex) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.ACCEPTED.value(),
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return new ResponseEntity<>(error, HttpStatus.ACCEPTED);
+    }
+
+    // Square is failing or saturated - fail fast and tell the client when to come back
+    @ExceptionHandler(PaymentGatewayUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handlePaymentGatewayUnavailable(PaymentGatewayUnavailableException ex) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     //Inner class for error response structure
     @Getter
     public static class ErrorResponse{
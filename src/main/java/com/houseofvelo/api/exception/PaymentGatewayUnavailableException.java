@@ -0,0 +1,15 @@
+package com.houseofvelo.api.exception;
+
+import lombok.Getter;
+
+// Raised without calling Square at all (circuit open or gateway pool full) - nothing was charged
+@Getter
+public class PaymentGatewayUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PaymentGatewayUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package com.houseofvelo.api.exception;
+
+public class PaymentPendingException extends RuntimeException {
+    public PaymentPendingException(String message) {
+        super(message);
+    }
+}
@@ -13,12 +13,36 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        // Keyset pagination for the admin booking search: each filter column leads, (scheduled_at, id) follows
+        @Index(name = "idx_bookings_scheduled_at_id", columnList = "scheduled_at, id"),
+        @Index(name = "idx_bookings_status_scheduled_at_id", columnList = "status, scheduled_at, id"),
+        @Index(name = "idx_bookings_trainer_scheduled_at_id", columnList = "trainer_id, scheduled_at, id"),
+        @Index(name = "idx_bookings_user_scheduled_at_id", columnList = "user_id, scheduled_at, id"),
+        @Index(name = "idx_bookings_player_scheduled_at_id", columnList = "player_id, scheduled_at, id"),
+        @Index(name = "idx_bookings_status_hold_expires_at", columnList = "status, hold_expires_at")
+})
+// Everything BookingResponse.fromBooking reads - list queries load it in one select instead of one per row
+@NamedEntityGraph(
+        name = Booking.WITH_DETAILS,
+        attributeNodes = {
+                @NamedAttributeNode("user"),
+                @NamedAttributeNode("player"),
+                @NamedAttributeNode(value = "sessionTypeOption", subgraph = "sessionTypeOption"),
+                @NamedAttributeNode(value = "trainer", subgraph = "trainer")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "sessionTypeOption", attributeNodes = @NamedAttributeNode("sessionType")),
+                @NamedSubgraph(name = "trainer", attributeNodes = @NamedAttributeNode("user"))
+        }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Booking {
 
+    public static final String WITH_DETAILS = "Booking.withDetails";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -59,12 +83,16 @@ public class Booking {
     @Column(name = "pay_in_person")
     private Boolean payInPerson;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Subscription subscription;
 
     @Column(name = "payment_deadline")
     private LocalDateTime paymentDeadline;
 
+    // Checkout hold on an UNPAID booking - once it passes, the slot is free again (see SlotHoldService)
+    @Column(name = "hold_expires_at")
+    private LocalDateTime holdExpiresAt;
+
     // Pricing (captured at booking time - price might change later)
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal pricePaid;
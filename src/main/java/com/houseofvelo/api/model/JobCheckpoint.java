@@ -0,0 +1,39 @@
+package com.houseofvelo.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// How far a chunked job got through its current run. Advanced in the same transaction as each chunk,
+// so after a crash the next run picks up right after the last committed chunk
+@Entity
+@Table(name = "job_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    // The date the run is processing "as of" - a checkpoint from another day is not resumed
+    @Column(nullable = false)
+    private LocalDate runDate;
+
+    // Highest id already processed in this run (keyset position)
+    @Column(nullable = false)
+    private Long lastId;
+
+    @Column(nullable = false)
+    private Long processed;
+
+    private LocalDateTime startedAt;
+
+    // Null while the run is in progress (or crashed)
+    private LocalDateTime completedAt;
+}
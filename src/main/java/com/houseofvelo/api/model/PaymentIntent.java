@@ -0,0 +1,66 @@
+package com.houseofvelo.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One card payment attempt for a booking. Persisted and committed before Square is called, so every retry of
+// the same attempt sends the same idempotency key and Square never charges twice
+@Entity
+@Table(name = "payment_intents", indexes = {
+        @Index(name = "idx_payment_intents_booking_status", columnList = "booking_id, status")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentIntent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booking_id", nullable = false)
+    private Booking booking;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 64)
+    private String idempotencyKey;
+
+    // Card token from the Web Payments SDK - kept so a retry resubmits exactly the same request
+    @Column(name = "source_id", nullable = false)
+    private String sourceId;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 3)
+    private String currency = "USD";
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PaymentIntentStatus status;
+
+    @Column(name = "square_payment_id")
+    private String squarePaymentId;
+
+    @Column(name = "failure_code", length = 50)
+    private String failureCode;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
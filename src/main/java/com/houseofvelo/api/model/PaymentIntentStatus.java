@@ -0,0 +1,7 @@
+package com.houseofvelo.api.model;
+
+public enum PaymentIntentStatus {
+    PENDING,
+    SUCCEEDED,
+    FAILED
+}
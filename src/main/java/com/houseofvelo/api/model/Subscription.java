@@ -9,7 +9,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "subscriptions")
+@Table(name = "subscriptions", indexes = {
+        // SubscriptionRenewalJob: ACTIVE subscriptions whose period has ended
+        @Index(name = "idx_subscriptions_status_period_end", columnList = "status, current_period_end"),
+        // Token allocation: a player's ACTIVE plans for one session type option, soonest period end first
+        @Index(name = "idx_subscriptions_player_option_status", columnList = "player_id, session_type_option_id, status, current_period_end")
+})
 @Data
 public class Subscription {
 
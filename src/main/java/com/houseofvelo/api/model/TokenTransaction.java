@@ -1,29 +1,38 @@
 package com.houseofvelo.api.model;
 
 import jakarta.persistence.*;
+import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
-import org.springframework.data.annotation.CreatedBy;
+import org.hibernate.annotations.Immutable;
 
 import java.time.LocalDateTime;
 
+// Append-only: rows are written with SQL by TokenLedgerService / SubscriptionRenewalJob and never changed
+// (a Postgres trigger rejects UPDATE and DELETE). Subscription.tokensRemaining is the running balance
 @Entity
-@Table(name = "token_transactions")
+@Immutable
+@Table(name = "token_transactions", indexes = {
+        // Audit history per subscription in time order, and the streaming balance rebuild
+        @Index(name = "idx_token_transactions_subscription_created", columnList = "subscription_id, created_at, id"),
+        @Index(name = "idx_token_transactions_booking", columnList = "booking_id")
+})
+@Data
 public class TokenTransaction {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Subscription subscription;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Booking booking; // nullable -> only set when using token for booking
 
     @Enumerated(EnumType.STRING)
     private TokenTransactionType type; // GRANTED, USED, RETURNED, EXPIRED
 
-    private Integer amount;
+    private Integer amount; // signed: GRANTED / RETURNED add tokens, USED / EXPIRED remove them
     private Integer balanceAfter;
 
     private String notes;
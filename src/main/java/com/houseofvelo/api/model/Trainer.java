@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.cglib.core.Local;
@@ -34,6 +35,8 @@ public class Trainer {
     @Column(length = 500)
     private String imageUrl;
 
+    // Loaded for up to 50 trainers per select - a booking list with many trainers costs one query here, not one each
+    @BatchSize(size = 50)
     @ElementCollection(targetClass = Sport.class, fetch = FetchType.EAGER)
     @CollectionTable(name = "trainer_sports", joinColumns = @JoinColumn(name = "trainer_id"))
     @Enumerated(EnumType.STRING)
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.DayOfWeek;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,4 +22,7 @@ public interface AvailabilityRepository extends JpaRepository<TrainerAvailabilit
     List<TrainerAvailability> findByTrainerIdAndIsAvailableTrue(Long trainerId);
 
     List<TrainerAvailability> findByTrainerIdAndDayOfWeekAndIsAvailableTrue(Long trainerId, DayOfWeek dayOfWeek);
+
+    // Active slots for several trainers at once (cross-trainer slot search)
+    List<TrainerAvailability> findByTrainerIdInAndIsAvailableTrue(Collection<Long> trainerIds);
 }
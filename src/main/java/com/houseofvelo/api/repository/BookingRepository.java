@@ -2,44 +2,130 @@ package com.houseofvelo.api.repository;
 
 import com.houseofvelo.api.model.Booking;
 import com.houseofvelo.api.model.BookingStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingSearchRepository {
+
+    // Find all bookings (admin list) with everything BookingResponse needs
+    @Override
+    @EntityGraph(Booking.WITH_DETAILS)
+    List<Booking> findAll();
 
     // Find all bookings by user
+    @EntityGraph(Booking.WITH_DETAILS)
     List<Booking> findByUserIdOrderByScheduledAtDesc(Long userId);
 
     // Find upcoming bookings for a user
+    @EntityGraph(Booking.WITH_DETAILS)
     List<Booking> findByUserIdAndScheduledAtAfterOrderByScheduledAtAsc(Long userId, LocalDateTime after);
 
     // Find all bookings for a trainer
+    @EntityGraph(Booking.WITH_DETAILS)
     List<Booking> findByTrainerIdOrderByScheduledAtDesc(Long trainerId);
 
     // Find all upcoming bookings for a trainer
+    @EntityGraph(Booking.WITH_DETAILS)
     List<Booking> findByTrainerIdAndScheduledAtAfterOrderByScheduledAtAsc(Long trainerId, LocalDateTime after);
 
     // Find bookings by status
+    @EntityGraph(Booking.WITH_DETAILS)
     List<Booking> findByStatusOrderByScheduledAtDesc(BookingStatus status);
 
+    // Bookings with everything BookingResponse needs, for a set of ids (outbox payloads of bulk cancellations)
+    @EntityGraph(Booking.WITH_DETAILS)
+    List<Booking> findByIdIn(Collection<Long> ids);
+
+    // Row lock for the payment paths - two payment attempts for one booking run one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findByIdForUpdate(@Param("id") Long id);
+
+    // Probes the bookings_no_trainer_overlap GiST index (see PostgresSchemaInitializer) instead of scanning the trainer's rows.
+    // UNPAID bookings whose checkout hold has passed are not conflicts
     @Query(value = "SELECT * FROM bookings b " +
             "WHERE b.trainer_id = :trainerId " +
             "AND b.status IN ('CONFIRMED', 'UNPAID') " +
-            "AND b.scheduled_at < :endTime " +
-            "AND (b.scheduled_at + (b.duration_minutes || ' minutes')::INTERVAL) > :startTime",
+            "AND (b.status <> 'UNPAID' OR b.hold_expires_at IS NULL OR b.hold_expires_at > :now) " +
+            "AND b.time_range && tsrange(CAST(:startTime AS timestamp), CAST(:endTime AS timestamp), '[)')",
             nativeQuery = true)
     List<Booking> findConflictingBookings(
             @Param("trainerId") Long trainerId,
             @Param("startTime") LocalDateTime startTime,
-            @Param("endTime") LocalDateTime endTime
+            @Param("endTime") LocalDateTime endTime,
+            @Param("now") LocalDateTime now
+    );
+
+    // Transaction-scoped advisory lock on a trainer's schedule - serializes booking creation for one trainer across instances.
+    // The bigint id is folded into the int key rather than cast, so ids past 2^31-1 still lock (two trainers sharing
+    // a key only ever wait on each other)
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext('bookings.trainer'), CAST(:trainerId % 2147483647 AS integer))",
+            nativeQuery = true)
+    Integer lockTrainerSchedule(@Param("trainerId") Long trainerId);
+
+    // UNPAID bookings with a checkout hold (loads the slot hold wheel)
+    @Query("SELECT b.id AS bookingId, b.holdExpiresAt AS holdExpiresAt FROM Booking b " +
+            "WHERE b.status = com.houseofvelo.api.model.BookingStatus.UNPAID " +
+            "AND b.holdExpiresAt IS NOT NULL")
+    List<SlotHold> findSlotHolds();
+
+    // Unpaid pay-in-person bookings still waiting on their payment (loads the payment deadline wheel)
+    @Query("SELECT b.id AS bookingId, b.paymentDeadline AS paymentDeadline FROM Booking b " +
+            "WHERE b.payInPerson = true " +
+            "AND b.status = com.houseofvelo.api.model.BookingStatus.UNPAID " +
+            "AND b.paymentDeadline IS NOT NULL " +
+            "AND EXISTS (SELECT p.id FROM Payment p WHERE p.booking = b " +
+            "AND p.status = com.houseofvelo.api.model.PaymentStatus.PENDING)")
+    List<PaymentDeadline> findPendingPaymentDeadlines();
+
+    // Find slot-blocking bookings from a point in time onward (warms the in-memory schedule index)
+    List<Booking> findByStatusInAndScheduledAtGreaterThanEqual(Collection<BookingStatus> statuses, LocalDateTime from);
+
+    // Find slot-blocking bookings for a trainer in a date range (open-slot search before the index is warm)
+    List<Booking> findByTrainerIdAndStatusInAndScheduledAtBetween(
+            Long trainerId, Collection<BookingStatus> statuses, LocalDateTime from, LocalDateTime to
     );
 
-    // Find old confirmed bookings for auto-completion
-    List<Booking> findByStatusAndScheduledAtBefore(BookingStatus status, LocalDateTime before);
+    // Every booking with its BookingResponse associations, streamed off a server-side cursor (exports).
+    // Must be consumed inside a transaction and closed afterwards
+    @Query("SELECT b FROM Booking b " +
+            "JOIN FETCH b.user " +
+            "LEFT JOIN FETCH b.player " +
+            "JOIN FETCH b.sessionTypeOption o " +
+            "JOIN FETCH o.sessionType " +
+            "JOIN FETCH b.trainer t " +
+            "JOIN FETCH t.user " +
+            "ORDER BY b.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Booking> streamAllForExport();
+
+    interface SlotHold {
+        Long getBookingId();
+
+        LocalDateTime getHoldExpiresAt();
+    }
+
+    interface PaymentDeadline {
+        Long getBookingId();
+
+        LocalDateTime getPaymentDeadline();
+    }
 }
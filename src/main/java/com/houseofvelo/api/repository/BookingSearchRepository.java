@@ -0,0 +1,13 @@
+package com.houseofvelo.api.repository;
+
+import com.houseofvelo.api.dto.BookingSearchFilter;
+import com.houseofvelo.api.model.Booking;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookingSearchRepository {
+
+    // Newest first by (scheduledAt, id). Pass the last row of the previous page as the keyset, or nulls for the first page
+    List<Booking> searchPage(BookingSearchFilter filter, LocalDateTime afterScheduledAt, Long afterId, int maxResults);
+}
@@ -0,0 +1,71 @@
+package com.houseofvelo.api.repository;
+
+import com.houseofvelo.api.dto.BookingSearchFilter;
+import com.houseofvelo.api.model.Booking;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Spring Data picks this up as the implementation of BookingSearchRepository (the "Impl" suffix)
+public class BookingSearchRepositoryImpl implements BookingSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Booking> searchPage(BookingSearchFilter filter, LocalDateTime afterScheduledAt, Long afterId, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Booking> query = cb.createQuery(Booking.class);
+        Root<Booking> booking = query.from(Booking.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(booking.get("status"), filter.getStatus()));
+        }
+        if (filter.getTrainerId() != null) {
+            predicates.add(cb.equal(booking.get("trainer").get("id"), filter.getTrainerId()));
+        }
+        if (filter.getUserId() != null) {
+            predicates.add(cb.equal(booking.get("user").get("id"), filter.getUserId()));
+        }
+        if (filter.getPlayerId() != null) {
+            predicates.add(cb.equal(booking.get("player").get("id"), filter.getPlayerId()));
+        }
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(booking.get("scheduledAt"), filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            predicates.add(cb.lessThan(booking.get("scheduledAt"), filter.getTo()));
+        }
+        if (filter.getPayInPerson() != null) {
+            predicates.add(cb.equal(booking.get("payInPerson"), filter.getPayInPerson()));
+        }
+
+        // Seek past the previous page: (scheduledAt, id) < (afterScheduledAt, afterId)
+        if (afterScheduledAt != null && afterId != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(booking.get("scheduledAt"), afterScheduledAt),
+                    cb.and(
+                            cb.equal(booking.get("scheduledAt"), afterScheduledAt),
+                            cb.lessThan(booking.get("id"), afterId)
+                    )
+            ));
+        }
+
+        query.select(booking)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(booking.get("scheduledAt")), cb.desc(booking.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint("jakarta.persistence.fetchgraph", entityManager.getEntityGraph(Booking.WITH_DETAILS))
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+}
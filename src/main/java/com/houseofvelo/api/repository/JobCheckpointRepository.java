@@ -0,0 +1,17 @@
+package com.houseofvelo.api.repository;
+
+import com.houseofvelo.api.model.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+
+    // Called inside the chunk's transaction so the checkpoint commits (or rolls back) with the chunk
+    @Modifying
+    @Query("UPDATE JobCheckpoint c SET c.lastId = :lastId, c.processed = c.processed + :processed WHERE c.name = :name")
+    int advance(@Param("name") String name, @Param("lastId") Long lastId, @Param("processed") long processed);
+}
@@ -0,0 +1,41 @@
+package com.houseofvelo.api.repository;
+
+import com.houseofvelo.api.model.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    // Take the lock if the row is new or the current lock has expired. Returns 1 when acquired, 0 when someone else holds it
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO job_locks (name, locked_until, locked_at, locked_by) " +
+            "VALUES (:name, :lockedUntil, :now, :lockedBy) " +
+            "ON CONFLICT (name) DO UPDATE " +
+            "SET locked_until = EXCLUDED.locked_until, locked_at = EXCLUDED.locked_at, locked_by = EXCLUDED.locked_by " +
+            "WHERE job_locks.locked_until <= :now",
+            nativeQuery = true)
+    int tryAcquire(
+            @Param("name") String name,
+            @Param("lockedBy") String lockedBy,
+            @Param("now") LocalDateTime now,
+            @Param("lockedUntil") LocalDateTime lockedUntil
+    );
+
+    // Release early, but never before lockAtLeastUntil (keeps a fast job from running again on another instance's tick)
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobLock l SET l.lockedUntil = :lockedUntil WHERE l.name = :name AND l.lockedBy = :lockedBy")
+    int release(
+            @Param("name") String name,
+            @Param("lockedBy") String lockedBy,
+            @Param("lockedUntil") LocalDateTime lockedUntil
+    );
+}
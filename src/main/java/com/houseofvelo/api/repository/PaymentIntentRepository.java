@@ -0,0 +1,26 @@
+package com.houseofvelo.api.repository;
+
+import com.houseofvelo.api.model.PaymentIntent;
+import com.houseofvelo.api.model.PaymentIntentStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PaymentIntentRepository extends JpaRepository<PaymentIntent, Long> {
+
+    // The attempt still in flight for a booking, if any
+    Optional<PaymentIntent> findFirstByBookingIdAndStatusOrderByCreatedAtDesc(Long bookingId, PaymentIntentStatus status);
+
+    Optional<PaymentIntent> findBySquarePaymentId(String squarePaymentId);
+
+    @Query("SELECT i.booking.id FROM PaymentIntent i WHERE i.id = :id")
+    Optional<Long> findBookingIdById(@Param("id") Long id);
+
+    // Straight from the database, even when the intent is already loaded in this session
+    @Query("SELECT i.status FROM PaymentIntent i WHERE i.id = :id")
+    Optional<PaymentIntentStatus> findStatusById(@Param("id") Long id);
+}
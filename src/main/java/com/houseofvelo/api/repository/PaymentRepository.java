@@ -2,11 +2,18 @@ package com.houseofvelo.api.repository;
 
 import com.houseofvelo.api.model.Payment;
 import com.houseofvelo.api.model.PaymentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
@@ -17,5 +24,18 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     Optional<Payment> findBySquarePaymentId(String squarePaymentId);
 
+    // Batch lookup for webhook processing, bookings included since refunds cancel them
+    @EntityGraph(attributePaths = "booking")
+    List<Payment> findBySquarePaymentIdIn(Collection<String> squarePaymentIds);
+
     List<Payment> findByUserIdAndStatus(Long userId, PaymentStatus status);
+
+    // Every payment streamed off a server-side cursor (exports). PaymentResponse only needs the user and
+    // booking ids, which come from the foreign keys, so no joins. Consume inside a transaction and close afterwards
+    @Query("SELECT p FROM Payment p ORDER BY p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Payment> streamAllForExport();
 }
@@ -2,6 +2,8 @@ package com.houseofvelo.api.repository;
 
 import com.houseofvelo.api.model.Player;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,4 +20,8 @@ public interface PlayerRepository extends JpaRepository<Player, Long> {
 
     List<Player> findAll();
 
+    // Ids of the players a user manages (as parent) or is (as independent player)
+    @Query("SELECT p.id FROM Player p WHERE p.parent.id = :userId OR p.user.id = :userId")
+    List<Long> findIdsByOwner(@Param("userId") Long userId);
+
 }
@@ -3,6 +3,8 @@ package com.houseofvelo.api.repository;
 import com.houseofvelo.api.model.Subscription;
 import com.houseofvelo.api.model.SubscriptionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -22,11 +24,26 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
     // Find all subscriptions for a player
     List<Subscription> findByPlayerId(Long playerId);
 
-    // Find active subscriptions for a player with available tokens
-    List<Subscription> findByPlayerIdAndStatusAndTokensRemainingGreaterThan(
-            Long playerId, SubscriptionStatus status, Integer minTokens
-    );
-
     // Find all active subscriptions for a user (across all their players)
     List<Subscription> findByUserIdAndStatus(Long userId, SubscriptionStatus status);
+
+    // Token allocation: the player's plans for this session type option with a token left, soonest period end
+    // first. An index range scan on idx_subscriptions_player_option_status, already in the wanted order
+    @Query(value = "SELECT id FROM subscriptions " +
+            "WHERE player_id = :playerId AND session_type_option_id = :sessionTypeOptionId AND status = 'ACTIVE' " +
+            "AND tokens_remaining > 0 " +
+            "ORDER BY current_period_end, id LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findTokenCandidatesForOption(@Param("playerId") Long playerId,
+                                            @Param("sessionTypeOptionId") Long sessionTypeOptionId,
+                                            @Param("limit") int limit);
+
+    // Token allocation across all of the player's plans, ones for this session type option first
+    @Query(value = "SELECT id FROM subscriptions " +
+            "WHERE player_id = :playerId AND status = 'ACTIVE' AND tokens_remaining > 0 " +
+            "ORDER BY (session_type_option_id = :sessionTypeOptionId) IS NOT TRUE, current_period_end, id LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findTokenCandidatesPreferringOption(@Param("playerId") Long playerId,
+                                                   @Param("sessionTypeOptionId") Long sessionTypeOptionId,
+                                                   @Param("limit") int limit);
 }
@@ -0,0 +1,17 @@
+package com.houseofvelo.api.repository;
+
+import com.houseofvelo.api.model.TokenTransaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenTransactionRepository extends JpaRepository<TokenTransaction, Long> {
+
+    // Served by idx_token_transactions_subscription_created
+    List<TokenTransaction> findBySubscriptionIdAndCreatedAtBetweenOrderByCreatedAtAscIdAsc(
+            Long subscriptionId, LocalDateTime from, LocalDateTime to
+    );
+}
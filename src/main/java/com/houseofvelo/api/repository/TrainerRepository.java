@@ -3,6 +3,8 @@ package com.houseofvelo.api.repository;
 import com.houseofvelo.api.model.Sport;
 import com.houseofvelo.api.model.Trainer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,10 +17,23 @@ public interface TrainerRepository extends JpaRepository<Trainer, Long> {
     // Find trainer by user ID (for "my profile")
     Optional<Trainer> findByUserId(Long userId);
 
+    // Trainer id for a user, without loading the trainer (authenticated principal)
+    @Query("SELECT t.id FROM Trainer t WHERE t.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
     // Check if trainer exists for user
     boolean existsByUserId(Long userId);
 
     List<Trainer> findByIsActiveTrue();
 
     List<Trainer> findBySportsContaining(Set<Sport> sports);
+
+    // Active trainers with user and sports loaded in one query (cross-trainer slot search)
+    @Query("SELECT DISTINCT t FROM Trainer t JOIN FETCH t.user LEFT JOIN FETCH t.sports WHERE t.isActive = true")
+    List<Trainer> findActiveWithUser();
+
+    // Active trainers coaching a sport, with user and sports loaded in one query
+    @Query("SELECT DISTINCT t FROM Trainer t JOIN FETCH t.user LEFT JOIN FETCH t.sports " +
+            "WHERE t.isActive = true AND :sport MEMBER OF t.sports")
+    List<Trainer> findActiveWithUserBySport(@Param("sport") Sport sport);
 }
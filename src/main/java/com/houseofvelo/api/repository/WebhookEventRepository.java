@@ -0,0 +1,41 @@
+package com.houseofvelo.api.repository;
+
+import com.houseofvelo.api.model.WebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+
+    // Append to the inbox; returns 0 when the event id is already there (a redelivery)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO webhook_inbox (source, event_id, event_type, payload, status, attempts, received_at) " +
+            "VALUES (:source, :eventId, :eventType, :payload, 'RECEIVED', 0, :receivedAt) " +
+            "ON CONFLICT (event_id) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(
+            @Param("source") String source,
+            @Param("eventId") String eventId,
+            @Param("eventType") String eventType,
+            @Param("payload") String payload,
+            @Param("receivedAt") LocalDateTime receivedAt
+    );
+
+    // Oldest unprocessed events, locked for this worker; other instances skip them instead of waiting
+    @Query(value = "SELECT * FROM webhook_inbox WHERE status = 'RECEIVED' ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<WebhookEvent> claimBatch(@Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM webhook_inbox WHERE id = :id AND status = 'RECEIVED' FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    Optional<WebhookEvent> claimById(@Param("id") Long id);
+}
@@ -0,0 +1,29 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.model.Booking;
+import com.houseofvelo.api.repository.SubscriptionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Lenient: any of the player's plans may pay. Plans for the booked option still go first, then soonest period end
+@Component
+@RequiredArgsConstructor
+public class AnyPlanAllocationStrategy implements TokenAllocationStrategy {
+
+    public static final String NAME = "any-plan";
+
+    private final SubscriptionRepository subscriptionRepository;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<Long> candidates(Booking booking, int limit) {
+        return subscriptionRepository.findTokenCandidatesPreferringOption(
+                booking.getPlayer().getId(), booking.getSessionTypeOption().getId(), limit);
+    }
+}
@@ -0,0 +1,85 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.model.Role;
+import com.houseofvelo.api.repository.PlayerRepository;
+import com.houseofvelo.api.repository.TrainerRepository;
+import com.houseofvelo.api.util.AuthenticatedUser;
+import com.houseofvelo.api.util.JwtPrincipal;
+import com.houseofvelo.api.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the AuthenticatedUser for a verified token: the JWT claims plus the trainer and player ids the user owns.
+ * Those ids are cached per user, so ownership checks don't re-query trainers/players on every request.
+ * Anything that creates or removes a trainer profile or a player must call evictAfterCommit.
+ */
+@Service
+@RequiredArgsConstructor
+public class AuthenticatedUserService {
+
+    // Upper bound on staleness if another instance changed a user's players or trainer profile
+    private static final Duration LINKS_TTL = Duration.ofMinutes(5);
+
+    private final TrainerRepository trainerRepository;
+    private final PlayerRepository playerRepository;
+
+    @Value("${jwt.cache-size:10000}")
+    private int cacheSize;
+
+    private final Map<Long, Links> linksByUser = new ConcurrentHashMap<>();
+
+    public AuthenticatedUser load(JwtPrincipal principal) {
+        Links links = linksFor(principal.userId(), principal.role());
+        return new AuthenticatedUser(principal.userId(), principal.email(), principal.role(), links.trainerId(), links.playerIds());
+    }
+
+    // Forget a user's cached trainer/player ids once the current transaction commits
+    public void evictAfterCommit(Long userId) {
+        TransactionUtils.afterCommit(() -> linksByUser.remove(userId));
+    }
+
+    private Links linksFor(Long userId, Role role) {
+        Instant now = Instant.now();
+        Links cached = linksByUser.get(userId);
+        if (cached != null && cached.loadedAt().plus(LINKS_TTL).isAfter(now)) {
+            return cached;
+        }
+
+        // Only the roles that can own them pay for the lookups
+        Long trainerId = role == Role.TRAINER || role == Role.ADMIN
+                ? trainerRepository.findIdByUserId(userId).orElse(null)
+                : null;
+        Set<Long> playerIds = role == Role.PARENT || role == Role.PLAYER
+                ? Set.copyOf(playerRepository.findIdsByOwner(userId))
+                : Set.of();
+
+        Links links = new Links(trainerId, playerIds, now);
+        if (linksByUser.size() >= cacheSize) {
+            evict(now);
+        }
+        linksByUser.put(userId, links);
+        return links;
+    }
+
+    private void evict(Instant now) {
+        linksByUser.values().removeIf(links -> !links.loadedAt().plus(LINKS_TTL).isAfter(now));
+
+        Iterator<Long> users = linksByUser.keySet().iterator();
+        while (linksByUser.size() >= cacheSize && users.hasNext()) {
+            users.next();
+            users.remove();
+        }
+    }
+
+    private record Links(Long trainerId, Set<Long> playerIds, Instant loadedAt) {
+    }
+}
@@ -27,10 +27,9 @@ public class AvailabilityService {
     private final TrainerRepository trainerRepository;
 
     @Transactional
-    public AvailabilityResponse addAvailability(Long userId, CreateAvailabilityRequest request){
-        // Find trainer by user ID
-        Trainer trainer = trainerRepository.findByUserId(userId)
-                .orElseThrow(() -> new TrainerNotFoundException("Trainer profile not found"));
+    public AvailabilityResponse addAvailability(Long trainerId, CreateAvailabilityRequest request){
+        // The caller's trainer id comes from the authenticated principal - only a reference is needed
+        Trainer trainer = trainerRepository.getReferenceById(trainerId);
 
         // Validate times
         if (request.getEndTime().isBefore(request.getStartTime()) ||
@@ -50,11 +49,8 @@ public class AvailabilityService {
         return AvailabilityResponse.fromAvailability(saved);
     }
 
-    public List<AvailabilityResponse> getMyAvailability(Long userId){
-        Trainer trainer = trainerRepository.findByUserId(userId)
-                .orElseThrow(() -> new TrainerNotFoundException("Trainer profile not found"));
-
-        return availabilityRepository.findByTrainerId(trainer.getId())
+    public List<AvailabilityResponse> getMyAvailability(Long trainerId){
+        return availabilityRepository.findByTrainerId(trainerId)
                 .stream()
                 .map(AvailabilityResponse::fromAvailability)
                 .collect(Collectors.toList());
@@ -72,15 +68,12 @@ public class AvailabilityService {
     }
 
     @Transactional
-    public AvailabilityResponse updateAvailability(Long availabilityId, Long userId, UpdateAvailabilityRequest request) {
-        TrainerAvailability availability = availabilityRepository.findById(userId)
+    public AvailabilityResponse updateAvailability(Long availabilityId, Long trainerId, UpdateAvailabilityRequest request) {
+        TrainerAvailability availability = availabilityRepository.findById(availabilityId)
                 .orElseThrow(() -> new AvailabilityNotFoundException("Availability not found with id: " + availabilityId));
 
         // Check ownership - only the trainer who owns this slot can update it
-        Trainer trainer = trainerRepository.findByUserId(userId)
-                .orElseThrow(() -> new TrainerNotFoundException("Trainer profile not found"));
-
-        if (!availability.getTrainer().getId().equals(trainer.getId())){
+        if (!availability.getTrainer().getId().equals(trainerId)){
             throw new UnauthorizedAccessException("You don't have permission to update this availability");
         }
 
@@ -112,15 +105,12 @@ public class AvailabilityService {
     }
 
     @Transactional
-    public void deleteAvailability(Long availabilityId, Long userId) {
+    public void deleteAvailability(Long availabilityId, Long trainerId) {
         TrainerAvailability availability = availabilityRepository.findById(availabilityId)
                 .orElseThrow(() -> new AvailabilityNotFoundException("Availability not found"));
 
         // Check ownership
-        Trainer trainer = trainerRepository.findByUserId(userId)
-                .orElseThrow(() -> new TrainerNotFoundException("Trainer profile not found"));
-
-        if (!availability.getTrainer().getId().equals(trainer.getId())){
+        if (!availability.getTrainer().getId().equals(trainerId)){
             throw new UnauthorizedAccessException("You don't have permission to delete this availability");
         }
 
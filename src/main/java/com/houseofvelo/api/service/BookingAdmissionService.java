@@ -0,0 +1,75 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.dto.BookingResponse;
+import com.houseofvelo.api.dto.CreateBookingRequest;
+import com.houseofvelo.api.dto.RecurringBookingRequest;
+import com.houseofvelo.api.dto.RecurringBookingResponse;
+import com.houseofvelo.api.exception.BookingConflictException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes booking creation per trainer so the conflict check and the insert happen as one step.
+ * In-process, a striped lock keyed by trainer id queues same-trainer requests while other trainers run in parallel;
+ * across instances, BookingService takes a Postgres advisory lock on the trainer inside the same transaction.
+ * The stripe is held until the transaction has committed, so the next attempt always sees the new booking.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingAdmissionService {
+
+    // Power of two so the stripe is a mask of the trainer id hash
+    private static final int STRIPES = 64;
+    private static final long LOCK_TIMEOUT_SECONDS = 5;
+
+    private final BookingService bookingService;
+
+    private final ReentrantLock[] stripes = newStripes();
+
+    public BookingResponse createBooking(Long userId, CreateBookingRequest request) {
+        return admit(request.getTrainerId(), () -> bookingService.createBooking(userId, request));
+    }
+
+    // The whole series is admitted under the trainer's stripe once, not per occurrence
+    public RecurringBookingResponse createRecurringBookings(Long userId, RecurringBookingRequest request) {
+        return admit(request.getTrainerId(), () -> bookingService.createRecurringBookings(userId, request));
+    }
+
+    private <T> T admit(Long trainerId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeFor(trainerId)];
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookingConflictException("Booking was interrupted, please try again");
+        }
+        if (!acquired) {
+            throw new BookingConflictException("This trainer is receiving a lot of bookings right now, please try again");
+        }
+
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int stripeFor(Long trainerId) {
+        // Spread sequential ids across stripes
+        int hash = Long.hashCode(trainerId) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static ReentrantLock[] newStripes() {
+        ReentrantLock[] locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,116 @@
+package com.houseofvelo.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Marks CONFIRMED bookings as COMPLETED once they are more than 24 hours old (the window trainers get to
+ * record a no-show). Runs on a schedule on one instance at a time and updates rows in bounded chunks with a
+ * single statement each - no entities are loaded.
+ */
+@Service
+@Slf4j
+public class BookingCompletionJob {
+
+    static final String JOB_NAME = "booking-auto-complete";
+
+    private static final int COMPLETE_AFTER_HOURS = 24;
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(10);
+    // No minimum hold: a second run right after one finishes finds nothing past the cutoff left to complete, and an
+    // admin re-trigger must not be refused just because the last run ended moments ago
+    private static final Duration LOCK_AT_LEAST_FOR = Duration.ZERO;
+
+    // SKIP LOCKED leaves rows another transaction is touching (e.g. an admin override) for the next run
+    private static final String COMPLETE_CHUNK_SQL =
+            "UPDATE bookings SET status = 'COMPLETED', updated_at = now() " +
+            "WHERE id IN (" +
+            "    SELECT id FROM bookings " +
+            "    WHERE status = 'CONFIRMED' AND scheduled_at < ? " +
+            "    ORDER BY id LIMIT ? " +
+            "    FOR UPDATE SKIP LOCKED" +
+            ") " +
+            "RETURNING id, trainer_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLockService jobLockService;
+    private final TrainerScheduleIndex trainerScheduleIndex;
+    private final Timer runTimer;
+    private final Counter completedCounter;
+
+    @Value("${jobs.auto-complete.chunk-size:500}")
+    private int chunkSize;
+
+    public BookingCompletionJob(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            JobLockService jobLockService,
+            TrainerScheduleIndex trainerScheduleIndex,
+            MeterRegistry meterRegistry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobLockService = jobLockService;
+        this.trainerScheduleIndex = trainerScheduleIndex;
+        this.runTimer = Timer.builder("bookings.auto_complete.duration")
+                .description("Time taken by one auto-complete run")
+                .register(meterRegistry);
+        this.completedCounter = Counter.builder("bookings.auto_complete.completed")
+                .description("Bookings moved from CONFIRMED to COMPLETED")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${jobs.auto-complete.cron:0 15 * * * *}")
+    public void scheduledRun() {
+        run();
+    }
+
+    // Returns the number of bookings completed, or -1 if another instance is already running the job
+    public int run() {
+        return jobLockService.runExclusively(JOB_NAME, LOCK_AT_MOST_FOR, LOCK_AT_LEAST_FOR, this::completeOldBookings)
+                .orElse(-1);
+    }
+
+    private int completeOldBookings() {
+        Timer.Sample sample = Timer.start();
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(COMPLETE_AFTER_HOURS);
+        int total = 0;
+        int chunks = 0;
+
+        // Each chunk commits on its own, so row locks are short and a failure keeps the earlier chunks
+        int completed;
+        do {
+            completed = transactionTemplate.execute(status -> completeChunk(cutoff));
+            total += completed;
+            chunks++;
+        } while (completed == chunkSize);
+
+        long nanos = sample.stop(runTimer);
+        completedCounter.increment(total);
+        log.info("Auto-completed {} bookings in {} chunk(s), {} ms", total, chunks, Duration.ofNanos(nanos).toMillis());
+        return total;
+    }
+
+    private int completeChunk(LocalDateTime cutoff) {
+        List<long[]> completed = jdbcTemplate.query(COMPLETE_CHUNK_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong("id"), rs.getLong("trainer_id")},
+                Timestamp.valueOf(cutoff), chunkSize);
+
+        // COMPLETED no longer blocks a slot
+        completed.forEach(row -> trainerScheduleIndex.removeAfterCommit(row[0], row[1]));
+        return completed.size();
+    }
+}
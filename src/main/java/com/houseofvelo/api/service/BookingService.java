@@ -1,26 +1,45 @@
 package com.houseofvelo.api.service;
 
+import com.houseofvelo.api.dto.BookingPageResponse;
 import com.houseofvelo.api.dto.BookingResponse;
+import com.houseofvelo.api.dto.BookingSearchFilter;
 import com.houseofvelo.api.dto.CancelBookingRequest;
 import com.houseofvelo.api.dto.CreateBookingRequest;
+import com.houseofvelo.api.dto.RecurringBookingRequest;
+import com.houseofvelo.api.dto.RecurringBookingResponse;
+import com.houseofvelo.api.event.OutboxEventTypes;
 import com.houseofvelo.api.exception.*;
 import com.houseofvelo.api.model.*;
 import com.houseofvelo.api.repository.*;
+import com.houseofvelo.api.util.DatabaseErrors;
 import com.houseofvelo.api.util.JwtUtil;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cglib.core.Local;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.awt.print.Book;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,11 +54,24 @@ public class BookingService {
     private final TrainerAvailabilityRepository trainerAvailabilityRepository;
 
     // Business rules constants
-    private static final int MIN_HOURS_ADVANCE = 2;
-    private static final int MAX_DAYS_ADVANCE = 90;
+    static final int MIN_HOURS_ADVANCE = 2;
+    static final int MAX_DAYS_ADVANCE = 90;
     private static final int CANCELLATION_HOURS = 24;
+
+    // time_range is generated by Postgres from scheduled_at and duration_minutes
+    private static final String INSERT_BOOKING_SQL =
+            "INSERT INTO bookings (user_id, player_id, session_type_option_id, trainer_id, scheduled_at, duration_minutes, " +
+            "status, hold_expires_at, price_paid, notes, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_SEARCH_PAGE_SIZE = 200;
     private final AvailabilityService availabilityService;
     private final AvailabilityRepository availabilityRepository;
+    private final TrainerScheduleIndex trainerScheduleIndex;
+    private final PaymentDeadlineScheduler paymentDeadlineScheduler;
+    private final SlotHoldService slotHoldService;
+    private final OutboxService outboxService;
+    private final TokenCompensationService tokenCompensationService;
+    private final JdbcTemplate jdbcTemplate;
 
     // Create new booking
     @Transactional
@@ -54,16 +86,7 @@ public class BookingService {
         Trainer trainer = trainerRepository.findById(request.getTrainerId())
                 .orElseThrow(() -> new TrainerNotFoundException("Trainer not found with id: " + request.getTrainerId()));
 
-        Player player = null;
-        if (request.getPlayerId() != null){
-            player = playerRepository.findById(request.getPlayerId())
-                    .orElseThrow(() -> new PlayerNotFoundException("Player not found with id: " + request.getPlayerId()));
-
-            // Verify player belongs to user
-            if (!player.getParent().getId().equals(userId)){
-                throw new UnauthorizedAccessException("Player does not belong to this user");
-            }
-        }
+        Player player = findOwnedPlayer(request.getPlayerId(), userId);
 
         // Step 2: Validate booking time
         validateBookingTime(request.getScheduledAt());
@@ -71,10 +94,17 @@ public class BookingService {
         // Step 3: Check Trainer availability
         validateTrainerAvailability(trainer, request.getScheduledAt(), sessionTypeOption.getSessionType().getDurationMinutes());
 
-        // Step 4: Check for conflicts
+        // Step 4: Lock the trainer's schedule until commit (BookingAdmissionService already holds the in-process stripe)
+        bookingRepository.lockTrainerSchedule(trainer.getId());
+
+        // Abandoned checkouts overlapping this slot no longer count - cancel them so the exclusion constraint agrees
+        LocalDateTime endTime = request.getScheduledAt().plusMinutes(sessionTypeOption.getSessionType().getDurationMinutes());
+        slotHoldService.releaseExpiredOverlapping(trainer.getId(), request.getScheduledAt(), endTime);
+
+        // Step 5: Check for conflicts against the in-memory schedule
         checkForConflicts(trainer.getId(), request.getScheduledAt(), sessionTypeOption.getSessionType().getDurationMinutes());
 
-        // Step 5: Create Booking
+        // Step 6: Create Booking
         Booking booking = new Booking();
         booking.setUser(user);
         booking.setPlayer(player);
@@ -83,12 +113,200 @@ public class BookingService {
         booking.setScheduledAt(request.getScheduledAt());
         booking.setDurationMinutes(sessionTypeOption.getSessionType().getDurationMinutes());
         booking.setStatus(BookingStatus.UNPAID);
+        booking.setHoldExpiresAt(slotHoldService.newHoldExpiry());
         booking.setPricePaid(sessionTypeOption.getPrice());
         booking.setNotes(request.getNotes());
 
-        Booking savedBooking = bookingRepository.save(booking);
+        // Step 7: Authoritative database recheck right before the insert
+        recheckConflictsInDatabase(trainer.getId(), request.getScheduledAt(), booking.getDurationMinutes());
 
-        return BookingResponse.fromBooking(savedBooking);
+        Booking savedBooking = saveSlotBlocking(booking);
+        trainerScheduleIndex.syncAfterCommit(savedBooking);
+        slotHoldService.syncAfterCommit(savedBooking);
+
+        BookingResponse response = BookingResponse.fromBooking(savedBooking);
+        outboxService.record("booking", savedBooking.getId(), OutboxEventTypes.BOOKING_CREATED, response);
+        return response;
+    }
+
+    // Book a weekly pattern in one pass: the trainer's hours and calendar for the whole span are loaded once, every
+    // occurrence is checked against them in memory, and the ones that fit go in as a single JDBC batch. Occurrences
+    // that don't fit are reported rather than failing the request. Each session is paid separately and holds its
+    // slot until its own payment deadline, 12 hours before it starts
+    @Transactional
+    public RecurringBookingResponse createRecurringBookings(Long userId, RecurringBookingRequest request) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
+
+        SessionTypeOption sessionTypeOption = sessionTypeOptionRepository.findById(request.getSessionTypeOptionId())
+                .orElseThrow(() -> new SessionTypeOptionNotFoundException("Session type not found with id: " + request.getSessionTypeOptionId()));
+
+        Trainer trainer = trainerRepository.findById(request.getTrainerId())
+                .orElseThrow(() -> new TrainerNotFoundException("Trainer not found with id: " + request.getTrainerId()));
+
+        Player player = findOwnedPlayer(request.getPlayerId(), userId);
+
+        int durationMinutes = sessionTypeOption.getSessionType().getDurationMinutes();
+        List<LocalDateTime> starts = weeklyOccurrences(request);
+        LocalDateTime spanStart = starts.get(0);
+        LocalDateTime spanEnd = starts.get(starts.size() - 1).plusMinutes(durationMinutes);
+
+        Map<DayOfWeek, List<TrainerAvailability>> hours = availabilityRepository
+                .findByTrainerIdAndIsAvailableTrue(trainer.getId()).stream()
+                .collect(Collectors.groupingBy(TrainerAvailability::getDayOfWeek));
+
+        // Same lock and hold cleanup as createBooking, taken once for the whole span
+        bookingRepository.lockTrainerSchedule(trainer.getId());
+        slotHoldService.releaseExpiredOverlapping(trainer.getId(), spanStart, spanEnd);
+
+        // The trainer's calendar for the span; accepted occurrences are added as we go
+        List<LocalDateTime[]> calendar = new ArrayList<>();
+        bookingRepository.findConflictingBookings(trainer.getId(), spanStart, spanEnd, LocalDateTime.now())
+                .forEach(existing -> calendar.add(new LocalDateTime[]{
+                        existing.getScheduledAt(), existing.getScheduledAt().plusMinutes(existing.getDurationMinutes())}));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<RecurringBookingResponse.Occurrence> report = new ArrayList<>();
+        List<Booking> accepted = new ArrayList<>();
+
+        for (LocalDateTime start : starts) {
+            LocalDateTime end = start.plusMinutes(durationMinutes);
+            try {
+                validateBookingTime(start);
+                validateTrainerAvailability(hours.getOrDefault(start.getDayOfWeek(), List.of()), start, durationMinutes);
+            } catch (InvalidBookingTimeException e) {
+                report.add(new RecurringBookingResponse.Occurrence(start, RecurringBookingResponse.OccurrenceStatus.UNAVAILABLE, null, e.getMessage()));
+                continue;
+            }
+
+            boolean taken = calendar.stream().anyMatch(slot -> start.isBefore(slot[1]) && end.isAfter(slot[0]));
+            if (taken) {
+                report.add(new RecurringBookingResponse.Occurrence(start, RecurringBookingResponse.OccurrenceStatus.CONFLICT, null,
+                        "This time slot is already booked"));
+                continue;
+            }
+            calendar.add(new LocalDateTime[]{start, end});
+
+            Booking booking = new Booking();
+            booking.setUser(user);
+            booking.setPlayer(player);
+            booking.setSessionTypeOption(sessionTypeOption);
+            booking.setTrainer(trainer);
+            booking.setScheduledAt(start);
+            booking.setDurationMinutes(durationMinutes);
+            booking.setStatus(BookingStatus.UNPAID);
+            booking.setHoldExpiresAt(slotHoldService.seriesHoldExpiry(start));
+            booking.setPricePaid(sessionTypeOption.getPrice());
+            booking.setNotes(request.getNotes());
+            booking.setCreatedAt(now);
+            booking.setUpdatedAt(now);
+            accepted.add(booking);
+            report.add(new RecurringBookingResponse.Occurrence(start, RecurringBookingResponse.OccurrenceStatus.CREATED, null, null));
+        }
+
+        insertBookings(accepted);
+
+        Iterator<Booking> created = accepted.iterator();
+        for (RecurringBookingResponse.Occurrence occurrence : report) {
+            if (occurrence.getStatus() == RecurringBookingResponse.OccurrenceStatus.CREATED) {
+                Booking booking = created.next();
+                occurrence.setBookingId(booking.getId());
+                trainerScheduleIndex.syncAfterCommit(booking);
+                slotHoldService.syncAfterCommit(booking);
+                outboxService.record("booking", booking.getId(), OutboxEventTypes.BOOKING_CREATED, BookingResponse.fromBooking(booking));
+            }
+        }
+
+        return RecurringBookingResponse.builder()
+                .requested(starts.size())
+                .created(accepted.size())
+                .rejected(starts.size() - accepted.size())
+                .occurrences(report)
+                .build();
+    }
+
+    // Start times of the pattern in date order: each matching weekday from startDate on, until enough are found
+    private List<LocalDateTime> weeklyOccurrences(RecurringBookingRequest request) {
+        List<LocalDateTime> starts = new ArrayList<>(request.getOccurrences());
+        for (LocalDate date = request.getStartDate(); starts.size() < request.getOccurrences(); date = date.plusDays(1)) {
+            if (request.getDaysOfWeek().contains(date.getDayOfWeek())) {
+                starts.add(date.atTime(request.getStartTime()));
+            }
+        }
+        return starts;
+    }
+
+    // One batched INSERT for all the new bookings; the exclusion constraint still has the final word
+    private void insertBookings(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_BOOKING_SQL, new String[]{"id"})) {
+                    for (Booking booking : bookings) {
+                        statement.setLong(1, booking.getUser().getId());
+                        statement.setObject(2, booking.getPlayer() != null ? booking.getPlayer().getId() : null, Types.BIGINT);
+                        statement.setLong(3, booking.getSessionTypeOption().getId());
+                        statement.setLong(4, booking.getTrainer().getId());
+                        statement.setTimestamp(5, Timestamp.valueOf(booking.getScheduledAt()));
+                        statement.setInt(6, booking.getDurationMinutes());
+                        statement.setString(7, booking.getStatus().name());
+                        statement.setTimestamp(8, Timestamp.valueOf(booking.getHoldExpiresAt()));
+                        statement.setBigDecimal(9, booking.getPricePaid());
+                        statement.setString(10, booking.getNotes());
+                        statement.setTimestamp(11, Timestamp.valueOf(booking.getCreatedAt()));
+                        statement.setTimestamp(12, Timestamp.valueOf(booking.getUpdatedAt()));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Booking booking : bookings) {
+                            keys.next();
+                            booking.setId(keys.getLong(1));
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (DatabaseErrors.isExclusionViolation(e)) {
+                throw new BookingConflictException(
+                        "One of these time slots was just booked. Please try again"
+                );
+            }
+            throw e;
+        }
+    }
+
+    // The player to book for, if any - it must belong to the booking user
+    private Player findOwnedPlayer(Long playerId, Long userId) {
+        if (playerId == null) {
+            return null;
+        }
+        Player player = playerRepository.findById(playerId)
+                .orElseThrow(() -> new PlayerNotFoundException("Player not found with id: " + playerId));
+
+        // Verify player belongs to user
+        if (!player.getParent().getId().equals(userId)){
+            throw new UnauthorizedAccessException("Player does not belong to this user");
+        }
+        return player;
+    }
+
+    // Save and flush a booking that may block a slot, so the exclusion constraint fires here and maps to a 409
+    private Booking saveSlotBlocking(Booking booking) {
+        try {
+            return bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            if (DatabaseErrors.isExclusionViolation(e)) {
+                throw new BookingConflictException(
+                        "This time slot is already booked. Please choose a different time"
+                );
+            }
+            throw e;
+        }
     }
 
     // Validate booking time is within acceptable window
@@ -111,13 +329,20 @@ public class BookingService {
     // Validate trainer has availability for this day/time
     private void validateTrainerAvailability(Trainer trainer, LocalDateTime scheduledAt, Integer durationMinutes){
         DayOfWeek dayOfWeek = scheduledAt.getDayOfWeek();
-        LocalTime startTime = scheduledAt.toLocalTime();
-        LocalTime endTime = startTime.plusMinutes(durationMinutes);
 
         // Find availability for this day
         List<TrainerAvailability> availabilities = availabilityRepository
                 .findByTrainerIdAndDayOfWeekAndIsAvailableTrue(trainer.getId(), dayOfWeek);
 
+        validateTrainerAvailability(availabilities, scheduledAt, durationMinutes);
+    }
+
+    // Same check against availability windows that are already loaded for that day
+    private void validateTrainerAvailability(List<TrainerAvailability> availabilities, LocalDateTime scheduledAt, Integer durationMinutes){
+        DayOfWeek dayOfWeek = scheduledAt.getDayOfWeek();
+        LocalTime startTime = scheduledAt.toLocalTime();
+        LocalTime endTime = startTime.plusMinutes(durationMinutes);
+
         if (availabilities.isEmpty()) {
             throw new InvalidBookingTimeException(
                     "Trainer is not available on " + dayOfWeek + "s"
@@ -137,14 +362,26 @@ public class BookingService {
         }
     }
 
-    // Check for booking conflicts
+    // Check for booking conflicts (in-memory index, no database round trip)
     private void checkForConflicts(Long trainerId, LocalDateTime scheduledAt, Integer durationMinutes){
         LocalDateTime endTime = scheduledAt.plusMinutes(durationMinutes);
 
+        if (trainerScheduleIndex.hasConflict(trainerId, scheduledAt, endTime)){
+            throw new BookingConflictException(
+                    "This time slot is already booked. Please choose a different time"
+            );
+        }
+    }
+
+    // Recheck conflicts in the database - the index can lag behind other instances
+    private void recheckConflictsInDatabase(Long trainerId, LocalDateTime scheduledAt, Integer durationMinutes){
+        LocalDateTime endTime = scheduledAt.plusMinutes(durationMinutes);
+
         List<Booking> conflicts = bookingRepository.findConflictingBookings(
                 trainerId,
                 scheduledAt,
-                endTime
+                endTime,
+                LocalDateTime.now()
         );
 
         if (!conflicts.isEmpty()){
@@ -239,7 +476,12 @@ public class BookingService {
         booking.setCancellationReason(request.getReason());
 
         Booking savedBooking = bookingRepository.save(booking);
-        return BookingResponse.fromBooking(savedBooking);
+        trainerScheduleIndex.syncAfterCommit(savedBooking);
+        paymentDeadlineScheduler.syncAfterCommit(savedBooking);
+        tokenCompensationService.compensateCancelledBooking(savedBooking, "cancelled");
+        BookingResponse response = BookingResponse.fromBooking(savedBooking);
+        outboxService.record("booking", savedBooking.getId(), OutboxEventTypes.BOOKING_CANCELLED, response);
+        return response;
     }
 
     // Mark booking as no-show (trainer-only)
@@ -267,6 +509,8 @@ public class BookingService {
 
         booking.setStatus(BookingStatus.NO_SHOW);
         Booking savedBooking = bookingRepository.save(booking);
+        trainerScheduleIndex.syncAfterCommit(savedBooking);
+        paymentDeadlineScheduler.syncAfterCommit(savedBooking);
 
         return BookingResponse.fromBooking(savedBooking);
     }
@@ -287,6 +531,56 @@ public class BookingService {
                 .collect(Collectors.toList());
     }
 
+    // ADMIN: One page of a filtered booking search, newest first. cursor is null for the first page
+    @Transactional(readOnly = true)
+    public BookingPageResponse searchBookings(BookingSearchFilter filter, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_SEARCH_PAGE_SIZE));
+
+        LocalDateTime afterScheduledAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] keyset = decodeCursor(cursor);
+            afterScheduledAt = LocalDateTime.parse(keyset[0]);
+            afterId = Long.parseLong(keyset[1]);
+        }
+
+        // Ask for one extra row to know whether another page exists
+        List<Booking> rows = bookingRepository.searchPage(filter, afterScheduledAt, afterId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<Booking> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Booking last = page.get(page.size() - 1);
+            nextCursor = encodeCursor(last.getScheduledAt(), last.getId());
+        }
+
+        List<BookingResponse> bookings = page.stream()
+                .map(BookingResponse::fromBooking)
+                .collect(Collectors.toList());
+        return new BookingPageResponse(bookings, nextCursor, hasMore);
+    }
+
+    // Cursor is the (scheduledAt, id) of the last row served, base64url-encoded so clients treat it as opaque
+    private String encodeCursor(LocalDateTime scheduledAt, Long id) {
+        String keyset = scheduledAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keyset.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] keyset = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (keyset.length != 2) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            LocalDateTime.parse(keyset[0]);
+            Long.parseLong(keyset[1]);
+            return keyset;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+
     // ADMIN: Update booking status (admin override)
     @Transactional
     public BookingResponse updateBookingStatus(Long bookingId, BookingStatus newStatus){
@@ -299,33 +593,27 @@ public class BookingService {
             booking.setCancelledAt(LocalDateTime.now());
         }
 
-        Booking savedBooking = bookingRepository.save(booking);
+        Booking savedBooking = saveSlotBlocking(booking);
+        trainerScheduleIndex.syncAfterCommit(savedBooking);
+        paymentDeadlineScheduler.syncAfterCommit(savedBooking);
 
-        return BookingResponse.fromBooking(savedBooking);
+        BookingResponse response = BookingResponse.fromBooking(savedBooking);
+        if (newStatus == BookingStatus.CANCELLED) {
+            tokenCompensationService.compensateCancelledBooking(savedBooking, "cancelled by admin");
+            outboxService.record("booking", savedBooking.getId(), OutboxEventTypes.BOOKING_CANCELLED, response);
+        }
+        return response;
     }
 
     // ADMIN delete booking
     @Transactional
     public void deleteBooking(Long bookingId){
-        if (!bookingRepository.existsById(bookingId)){
-            throw new BookingNotFoundException("Booking not found with id: " + bookingId);
-        }
-        bookingRepository.deleteById(bookingId);
-    }
-
-
-    // Auto-complete old confirmed bookings (to give time to trainer or admin to submit a no show)
-    // If they forget, the above method allows the admin to override it
-    @Transactional
-    public int autoCompleteOldBookings() {
-        // Find CONFIRMED bookings where scheduled time + 24 hours has passed
-        LocalDateTime cutOffTime = LocalDateTime.now().minusHours(24);
-        List<Booking> oldBookings = bookingRepository
-                .findByStatusAndScheduledAtBefore(BookingStatus.CONFIRMED, cutOffTime);
-
-        oldBookings.forEach(booking -> booking.setStatus(BookingStatus.COMPLETED));
-        bookingRepository.saveAll(oldBookings);
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new BookingNotFoundException("Booking not found with id: " + bookingId));
 
-        return oldBookings.size();
+        bookingRepository.delete(booking);
+        trainerScheduleIndex.removeAfterCommit(bookingId, booking.getTrainer().getId());
+        paymentDeadlineScheduler.removeAfterCommit(bookingId);
+        slotHoldService.removeAfterCommit(bookingId);
     }
 }
@@ -0,0 +1,108 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the public catalog (session types, options, trainers).
+ * Holds the serialized JSON body plus its ETag, so a hit costs no query, no DTO mapping and no serialization.
+ * Admin writes evict the exact keys they affect once their transaction commits; the TTL is only a backstop.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogCache {
+
+    public static final String SESSION_TYPES = "session-types";
+    public static final String TRAINERS = "trainers";
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${catalog.cache.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${catalog.cache.max-entries:1000}")
+    private int maxEntries;
+
+    private final Map<String, CachedBody> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction - a load that started before an eviction must not repopulate stale data
+    private final AtomicLong generation = new AtomicLong();
+
+    public static String sessionType(Long sessionTypeId) {
+        return SESSION_TYPES + "/" + sessionTypeId;
+    }
+
+    public static String sessionTypeOptions(Long sessionTypeId) {
+        return SESSION_TYPES + "/" + sessionTypeId + "/options";
+    }
+
+    public static String trainer(Long trainerId) {
+        return TRAINERS + "/" + trainerId;
+    }
+
+    public CachedBody get(String key, Supplier<?> loader) {
+        Instant now = Instant.now();
+        CachedBody cached = entries.get(key);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return cached;
+        }
+
+        long loadGeneration = generation.get();
+        byte[] body = objectMapper.writeValueAsBytes(loader.get());
+        CachedBody loaded = new CachedBody(body, etag(body), now.plus(ttl));
+
+        if (generation.get() == loadGeneration) {
+            if (entries.size() >= maxEntries) {
+                evictExpired(now);
+            }
+            entries.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    // Drop the given keys once the current transaction commits
+    public void evictAfterCommit(String... keys) {
+        List<String> toEvict = List.of(keys);
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            toEvict.forEach(entries::remove);
+        });
+    }
+
+    private void evictExpired(Instant now) {
+        entries.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record CachedBody(byte[] body, String etag, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,160 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.dto.BookingResponse;
+import com.houseofvelo.api.dto.PaymentResponse;
+import com.houseofvelo.api.repository.BookingRepository;
+import com.houseofvelo.api.repository.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes bookings and payments straight from a database cursor to the response, one row at a time.
+ * The persistence context is cleared every CHUNK_SIZE rows so memory stays flat regardless of table size.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final List<String> BOOKING_COLUMNS = List.of(
+            "id", "userId", "userName", "playerName", "sessionTypeOptionId", "sessionTypeName",
+            "sessionTypeOptionName", "trainerId", "trainerName", "scheduledAt", "durationMinutes",
+            "status", "pricePaid", "notes", "createdAt", "updatedAt", "cancellationReason"
+    );
+
+    private static final List<String> PAYMENT_COLUMNS = List.of(
+            "id", "userId", "bookingId", "squarePaymentId", "status", "method",
+            "amount", "currency", "paidAt", "createdAt"
+    );
+
+    private final BookingRepository bookingRepository;
+    private final PaymentRepository paymentRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public void exportBookings(OutputStream out, Format format) {
+        export(out, format, "bookings", BOOKING_COLUMNS,
+                bookingRepository::streamAllForExport,
+                BookingResponse::fromBooking,
+                this::bookingRow);
+    }
+
+    public void exportPayments(OutputStream out, Format format) {
+        export(out, format, "payments", PAYMENT_COLUMNS,
+                paymentRepository::streamAllForExport,
+                PaymentResponse::fromPayment,
+                this::paymentRow);
+    }
+
+    // Runs on the async response thread, so it opens its own read-only transaction for the cursor
+    private <E, R> void export(
+            OutputStream out,
+            Format format,
+            String name,
+            List<String> columns,
+            Supplier<Stream<E>> rows,
+            Function<E, R> toResponse,
+            Function<R, List<Object>> toCsvRow
+    ) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        long startedAt = System.currentTimeMillis();
+        long count = transaction.execute(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            long written = 0;
+
+            try (Stream<E> stream = rows.get()) {
+                if (format == Format.CSV) {
+                    writeCsvLine(writer, columns);
+                }
+
+                Iterator<E> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    R response = toResponse.apply(iterator.next());
+                    if (format == Format.CSV) {
+                        writeCsvLine(writer, toCsvRow.apply(response));
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(response));
+                        writer.write('\n');
+                    }
+
+                    // Detach what has been written and push it to the client
+                    if (++written % CHUNK_SIZE == 0) {
+                        entityManager.clear();
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                // Usually the client went away mid-download
+                throw new UncheckedIOException("Export of " + name + " aborted", e);
+            }
+            return written;
+        });
+
+        log.info("Exported {} {} as {} in {} ms", count, name, format, System.currentTimeMillis() - startedAt);
+    }
+
+    private List<Object> bookingRow(BookingResponse booking) {
+        return Arrays.asList(
+                booking.getId(), booking.getUserId(), booking.getUserName(), booking.getPlayerName(),
+                booking.getSessionTypeOptionId(), booking.getSessionTypeName(), booking.getSessionTypeOptionName(),
+                booking.getTrainerId(), booking.getTrainerName(), booking.getScheduledAt(), booking.getDurationMinutes(),
+                booking.getStatus(), booking.getPricePaid(), booking.getNotes(), booking.getCreatedAt(),
+                booking.getUpdatedAt(), booking.getCancellationReason()
+        );
+    }
+
+    private List<Object> paymentRow(PaymentResponse payment) {
+        return Arrays.asList(
+                payment.getId(), payment.getUserId(), payment.getBookingId(), payment.getSquarePaymentId(),
+                payment.getStatus(), payment.getMethod(), payment.getAmount(), payment.getCurrency(),
+                payment.getPaidAt(), payment.getCreatedAt()
+        );
+    }
+
+    // RFC 4180: quote fields containing a comma, quote or line break, doubling embedded quotes
+    private void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
@@ -0,0 +1,45 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.repository.JobLockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Single-runner semantics for scheduled jobs across instances, backed by the job_locks table.
+ * lockAtMostFor bounds how long a crashed holder can block the job; lockAtLeastFor stops other
+ * instances whose clocks tick slightly later from re-running a job that just finished.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobLockService {
+
+    // host@pid, e.g. "api-1@4711"
+    private static final String INSTANCE_ID = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final JobLockRepository jobLockRepository;
+
+    // Runs the job if this instance gets the lock; empty when another instance is already running it
+    public <T> Optional<T> runExclusively(String jobName, Duration lockAtMostFor, Duration lockAtLeastFor, Supplier<T> job) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        if (jobLockRepository.tryAcquire(jobName, INSTANCE_ID, startedAt, startedAt.plus(lockAtMostFor)) == 0) {
+            log.debug("Skipping {} - locked by another instance", jobName);
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.ofNullable(job.get());
+        } finally {
+            LocalDateTime earliestRelease = startedAt.plus(lockAtLeastFor);
+            LocalDateTime now = LocalDateTime.now();
+            jobLockRepository.release(jobName, INSTANCE_ID, now.isAfter(earliestRelease) ? now : earliestRelease);
+        }
+    }
+}
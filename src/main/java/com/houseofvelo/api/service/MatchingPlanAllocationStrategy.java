@@ -0,0 +1,30 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.model.Booking;
+import com.houseofvelo.api.repository.SubscriptionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Default: only a plan for the booked session type option pays, and the one whose period ends soonest goes first,
+// so tokens that are about to lapse get used before fresher ones
+@Component
+@RequiredArgsConstructor
+public class MatchingPlanAllocationStrategy implements TokenAllocationStrategy {
+
+    public static final String NAME = "matching-plan";
+
+    private final SubscriptionRepository subscriptionRepository;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<Long> candidates(Booking booking, int limit) {
+        return subscriptionRepository.findTokenCandidatesForOption(
+                booking.getPlayer().getId(), booking.getSessionTypeOption().getId(), limit);
+    }
+}
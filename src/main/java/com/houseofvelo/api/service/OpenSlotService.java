@@ -0,0 +1,247 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.dto.OpenSlotResponse;
+import com.houseofvelo.api.exception.InvalidBookingTimeException;
+import com.houseofvelo.api.exception.SessionTypeNotFoundException;
+import com.houseofvelo.api.exception.SessionTypeOptionNotFoundException;
+import com.houseofvelo.api.exception.TrainerNotFoundException;
+import com.houseofvelo.api.model.SessionType;
+import com.houseofvelo.api.model.SessionTypeOption;
+import com.houseofvelo.api.model.Sport;
+import com.houseofvelo.api.model.Trainer;
+import com.houseofvelo.api.model.TrainerAvailability;
+import com.houseofvelo.api.repository.AvailabilityRepository;
+import com.houseofvelo.api.repository.BookingRepository;
+import com.houseofvelo.api.repository.SessionTypeOptionRepository;
+import com.houseofvelo.api.repository.SessionTypeRepository;
+import com.houseofvelo.api.repository.TrainerRepository;
+import com.houseofvelo.api.service.TrainerScheduleIndex.BookedInterval;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OpenSlotService {
+
+    private static final int MAX_SLOTS = 2000;
+    private static final int MAX_SEARCH_RESULTS = 200;
+    private static final long SEARCH_TIMEOUT_SECONDS = 5;
+
+    private final TrainerRepository trainerRepository;
+    private final AvailabilityRepository availabilityRepository;
+    private final SessionTypeRepository sessionTypeRepository;
+    private final SessionTypeOptionRepository sessionTypeOptionRepository;
+    private final BookingRepository bookingRepository;
+    private final TrainerScheduleIndex trainerScheduleIndex;
+    private final SlotEngine slotEngine;
+
+    // Bounded pool for the per-trainer fan-out - saturation runs the work on the request thread instead of queueing forever
+    private final ExecutorService searchExecutor = newSearchExecutor();
+
+    // PUBLIC: Bookable start times for a trainer and session option between two dates (inclusive)
+    @Transactional(readOnly = true)
+    public List<OpenSlotResponse> getOpenSlots(Long trainerId, LocalDate from, LocalDate to, Long sessionTypeOptionId) {
+        Trainer trainer = trainerRepository.findById(trainerId)
+                .orElseThrow(() -> new TrainerNotFoundException("Trainer not found with id: " + trainerId));
+
+        SessionTypeOption option = sessionTypeOptionRepository.findById(sessionTypeOptionId)
+                .orElseThrow(() -> new SessionTypeOptionNotFoundException("Session type option not found with id: " + sessionTypeOptionId));
+        int durationMinutes = option.getSessionType().getDurationMinutes();
+
+        BookingWindow window = BookingWindow.of(from, to);
+        List<TrainerAvailability> availabilities = availabilityRepository.findByTrainerIdAndIsAvailableTrue(trainerId);
+
+        return computeSlots(trainer.getId(), trainer.getUser().getName(), availabilities, window, durationMinutes, MAX_SLOTS);
+    }
+
+    // PUBLIC: Soonest open slots across every active trainer (optionally for one sport), merged in time order
+    @Transactional(readOnly = true)
+    public List<OpenSlotResponse> searchOpenSlots(Long sessionTypeId, Sport sport, LocalDate from, LocalDate to, int limit) {
+        SessionType sessionType = sessionTypeRepository.findById(sessionTypeId)
+                .orElseThrow(() -> new SessionTypeNotFoundException("Session type not found with id: " + sessionTypeId));
+        int durationMinutes = sessionType.getDurationMinutes();
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+
+        BookingWindow window = BookingWindow.of(from, to);
+
+        // One query each for trainers and their availability - no per-trainer round trips
+        List<Trainer> trainers = sport != null
+                ? trainerRepository.findActiveWithUserBySport(sport)
+                : trainerRepository.findActiveWithUser();
+        if (trainers.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<TrainerAvailability>> availabilityByTrainer = availabilityRepository
+                .findByTrainerIdInAndIsAvailableTrue(trainers.stream().map(Trainer::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(availability -> availability.getTrainer().getId()));
+
+        // Fan out: each trainer's calendar is computed independently, capped at the overall limit
+        List<CompletableFuture<List<OpenSlotResponse>>> futures = new ArrayList<>();
+        for (Trainer trainer : trainers) {
+            List<TrainerAvailability> availabilities = availabilityByTrainer.getOrDefault(trainer.getId(), List.of());
+            if (availabilities.isEmpty()) {
+                continue;
+            }
+            Long trainerId = trainer.getId();
+            String trainerName = trainer.getUser().getName();
+
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> computeSlots(trainerId, trainerName, availabilities, window, durationMinutes, cappedLimit),
+                    searchExecutor));
+        }
+
+        List<List<OpenSlotResponse>> perTrainer = new ArrayList<>();
+        boolean finished = false;
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(SEARCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            for (CompletableFuture<List<OpenSlotResponse>> future : futures) {
+                perTrainer.add(future.join());
+            }
+            finished = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Open slot search was interrupted");
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Open slot search failed: {}", e.getMessage());
+            throw new IllegalStateException("Open slot search failed, please try again");
+        } finally {
+            // A failed or timed-out search must not leave the other trainers queued on the shared pool
+            if (!finished) {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+
+        return mergeInTimeOrder(perTrainer, cappedLimit);
+    }
+
+    private List<OpenSlotResponse> computeSlots(
+            Long trainerId,
+            String trainerName,
+            List<TrainerAvailability> availabilities,
+            BookingWindow window,
+            int durationMinutes,
+            int limit
+    ) {
+        List<BookedInterval> booked = bookedIntervals(trainerId, window.earliest(), window.latest().plusMinutes(durationMinutes));
+
+        return slotEngine.openStartTimes(availabilities, booked, window.earliest(), window.latest(), durationMinutes, limit)
+                .stream()
+                .map(start -> new OpenSlotResponse(trainerId, trainerName, start, start.plusMinutes(durationMinutes)))
+                .collect(Collectors.toList());
+    }
+
+    // Served from the in-memory schedule index; falls back to the database until it has been warmed
+    private List<BookedInterval> bookedIntervals(Long trainerId, LocalDateTime from, LocalDateTime to) {
+        if (trainerScheduleIndex.isWarm()) {
+            return trainerScheduleIndex.bookedIntervals(trainerId, from, to);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        return bookingRepository.findByTrainerIdAndStatusInAndScheduledAtBetween(
+                        trainerId, TrainerScheduleIndex.BLOCKING_STATUSES, from.minusDays(1), to)
+                .stream()
+                .map(BookedInterval::of)
+                .filter(interval -> interval.blocksAt(now))
+                .collect(Collectors.toList());
+    }
+
+    // k-way merge of the already time-ordered per-trainer lists, stopping at the limit
+    private List<OpenSlotResponse> mergeInTimeOrder(List<List<OpenSlotResponse>> perTrainer, int limit) {
+        Comparator<OpenSlotResponse> order = Comparator
+                .comparing(OpenSlotResponse::getStartsAt)
+                .thenComparing(OpenSlotResponse::getTrainerId);
+
+        PriorityQueue<PeekingIterator> heads = new PriorityQueue<>(Comparator.comparing(PeekingIterator::peek, order));
+        for (List<OpenSlotResponse> slots : perTrainer) {
+            if (!slots.isEmpty()) {
+                heads.add(new PeekingIterator(slots));
+            }
+        }
+
+        List<OpenSlotResponse> merged = new ArrayList<>(limit);
+        while (!heads.isEmpty() && merged.size() < limit) {
+            PeekingIterator head = heads.poll();
+            merged.add(head.next());
+            if (head.hasNext()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    @PreDestroy
+    void shutdownSearchExecutor() {
+        searchExecutor.shutdown();
+    }
+
+    private static ExecutorService newSearchExecutor() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "slot-search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(256), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Requested dates clamped to the booking rules (MIN_HOURS_ADVANCE / MAX_DAYS_ADVANCE)
+    private record BookingWindow(LocalDateTime earliest, LocalDateTime latest) {
+
+        static BookingWindow of(LocalDate from, LocalDate to) {
+            if (from.isAfter(to)) {
+                throw new InvalidBookingTimeException("'from' must be on or before 'to'");
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime minTime = now.plusHours(BookingService.MIN_HOURS_ADVANCE);
+            LocalDateTime maxTime = now.plusDays(BookingService.MAX_DAYS_ADVANCE);
+            LocalDateTime start = from.atStartOfDay();
+            LocalDateTime end = to.plusDays(1).atStartOfDay().minusNanos(1);
+
+            return new BookingWindow(
+                    start.isAfter(minTime) ? start : minTime,
+                    end.isBefore(maxTime) ? end : maxTime
+            );
+        }
+    }
+
+    private static final class PeekingIterator implements Iterator<OpenSlotResponse> {
+
+        private final List<OpenSlotResponse> slots;
+        private int position;
+
+        PeekingIterator(List<OpenSlotResponse> slots) {
+            this.slots = slots;
+        }
+
+        OpenSlotResponse peek() {
+            return slots.get(position);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < slots.size();
+        }
+
+        @Override
+        public OpenSlotResponse next() {
+            return slots.get(position++);
+        }
+    }
+}
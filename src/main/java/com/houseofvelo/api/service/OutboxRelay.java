@@ -0,0 +1,94 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.event.OutboxEventHandler;
+import com.houseofvelo.api.model.OutboxEvent;
+import com.houseofvelo.api.model.OutboxEventStatus;
+import com.houseofvelo.api.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Delivers outbox events to every OutboxEventHandler subscribed to their type, off the request thread.
+ * Batches are claimed with SKIP LOCKED so several instances can relay side by side; an event is marked
+ * processed only after all its handlers succeeded, otherwise it is retried with exponential backoff.
+ */
+@Service
+@Slf4j
+public class OutboxRelay {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, List<OutboxEventHandler>> handlersByType = new HashMap<>();
+
+    public OutboxRelay(
+            OutboxEventRepository outboxEventRepository,
+            PlatformTransactionManager transactionManager,
+            List<OutboxEventHandler> handlers
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (OutboxEventHandler handler : handlers) {
+            handler.eventTypes().forEach(type -> handlersByType.computeIfAbsent(type, t -> new ArrayList<>()).add(handler));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void relay() {
+        int claimed;
+        do {
+            claimed = transactionTemplate.execute(status -> relayBatch());
+        } while (claimed == BATCH_SIZE);
+    }
+
+    private int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = outboxEventRepository.claimDue(now, BATCH_SIZE);
+
+        for (OutboxEvent event : batch) {
+            event.setAttempts(event.getAttempts() + 1);
+            try {
+                dispatch(event);
+                event.setStatus(OutboxEventStatus.PROCESSED);
+                event.setProcessedAt(now);
+                event.setLastError(null);
+            } catch (RuntimeException e) {
+                scheduleRetry(event, now, e);
+            }
+        }
+        return batch.size();
+    }
+
+    private void dispatch(OutboxEvent event) {
+        for (OutboxEventHandler handler : handlersByType.getOrDefault(event.getEventType(), List.of())) {
+            handler.handle(event);
+        }
+    }
+
+    // 2s, 4s, 8s ... capped at an hour; gives up after MAX_ATTEMPTS and leaves the row FAILED for inspection
+    private void scheduleRetry(OutboxEvent event, LocalDateTime now, RuntimeException error) {
+        event.setLastError(error.getMessage());
+        if (event.getAttempts() >= MAX_ATTEMPTS) {
+            event.setStatus(OutboxEventStatus.FAILED);
+            log.error("Outbox event {} ({}) failed {} times, giving up: {}",
+                    event.getId(), event.getEventType(), event.getAttempts(), error.getMessage());
+            return;
+        }
+
+        Duration backoff = Duration.ofSeconds(1L << Math.min(event.getAttempts(), 12));
+        Duration delay = backoff.compareTo(MAX_BACKOFF) < 0 ? backoff : MAX_BACKOFF;
+        event.setNextAttemptAt(now.plus(delay));
+        log.warn("Outbox event {} ({}) failed, retrying in {}s: {}",
+                event.getId(), event.getEventType(), delay.getSeconds(), error.getMessage());
+    }
+}
@@ -0,0 +1,51 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.dto.BookingResponse;
+import com.houseofvelo.api.event.OutboxEventTypes;
+import com.houseofvelo.api.model.OutboxEvent;
+import com.houseofvelo.api.model.OutboxEventStatus;
+import com.houseofvelo.api.repository.BookingRepository;
+import com.houseofvelo.api.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final BookingRepository bookingRepository;
+
+    // Writes the event as part of the caller's transaction - it commits or rolls back with the change it describes.
+    // MANDATORY so a call from outside a transaction fails loudly instead of silently writing on its own
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setEventType(eventType);
+        event.setPayload(objectMapper.writeValueAsString(payload));
+        event.setStatus(OutboxEventStatus.PENDING);
+        event.setNextAttemptAt(LocalDateTime.now());
+
+        outboxEventRepository.save(event);
+    }
+
+    // BOOKING_CANCELLED for bookings cancelled in bulk by SQL (expired holds and payment deadlines), with the same
+    // payload as a cancellation through BookingService. One query loads them all
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBookingsCancelled(Collection<Long> bookingIds) {
+        if (bookingIds.isEmpty()) {
+            return;
+        }
+        bookingRepository.findByIdIn(bookingIds).forEach(booking ->
+                record("booking", booking.getId(), OutboxEventTypes.BOOKING_CANCELLED, BookingResponse.fromBooking(booking)));
+    }
+}
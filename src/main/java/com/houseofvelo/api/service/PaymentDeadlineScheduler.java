@@ -0,0 +1,156 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.model.Booking;
+import com.houseofvelo.api.model.BookingStatus;
+import com.houseofvelo.api.repository.BookingRepository;
+import com.houseofvelo.api.util.HierarchicalTimingWheel;
+import com.houseofvelo.api.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cancels pay-in-person bookings that are still unpaid when their payment deadline passes, freeing the trainer's slot.
+ * Deadlines live in an in-memory timing wheel - loaded once at startup and kept current as bookings and payments
+ * change - so the database is only touched when something actually expires.
+ */
+@Service
+@Slf4j
+public class PaymentDeadlineScheduler {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 64;
+    // 64^4 one-second ticks is roughly six months - further than anyone can book ahead
+    private static final int WHEEL_LEVELS = 4;
+
+    private static final int RELEASE_BATCH_SIZE = 200;
+    private static final long RETRY_DELAY_MILLIS = 30_000;
+    private static final String RELEASE_REASON = "Pay-in-person payment deadline passed";
+
+    // Re-checks every condition in the database, so a payment recorded on another instance (or a moved deadline) wins
+    private static final String RELEASE_BATCH_SQL =
+            "WITH released AS (" +
+            "    UPDATE bookings b SET status = 'CANCELLED', cancelled_at = :now, cancellation_reason = :reason, updated_at = :now " +
+            "    WHERE b.id IN (:bookingIds) " +
+            "    AND b.status = 'UNPAID' " +
+            "    AND b.pay_in_person = true " +
+            "    AND b.payment_deadline <= :now " +
+            "    AND EXISTS (SELECT 1 FROM payments p WHERE p.booking_id = b.id AND p.status = 'PENDING') " +
+            "    RETURNING b.id, b.trainer_id" +
+            "), voided AS (" +
+            "    UPDATE payments p SET status = 'FAILED', updated_at = :now " +
+            "    FROM released r " +
+            "    WHERE p.booking_id = r.id AND p.status = 'PENDING'" +
+            ") " +
+            "SELECT id, trainer_id FROM released";
+
+    private final BookingRepository bookingRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TrainerScheduleIndex trainerScheduleIndex;
+    private final OutboxService outboxService;
+
+    private final HierarchicalTimingWheel<Long> wheel =
+            new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+
+    public PaymentDeadlineScheduler(
+            BookingRepository bookingRepository,
+            NamedParameterJdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            TrainerScheduleIndex trainerScheduleIndex,
+            OutboxService outboxService
+    ) {
+        this.bookingRepository = bookingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.trainerScheduleIndex = trainerScheduleIndex;
+        this.outboxService = outboxService;
+    }
+
+    // Deadlines that passed while the app was down come back already due and are released on the first tick
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<BookingRepository.PaymentDeadline> deadlines = bookingRepository.findPendingPaymentDeadlines();
+        deadlines.forEach(deadline -> wheel.schedule(deadline.getBookingId(), toMillis(deadline.getPaymentDeadline())));
+        log.info("Payment deadline wheel loaded with {} pending pay-in-person bookings", deadlines.size());
+    }
+
+    // Track or forget a booking's deadline once the surrounding transaction commits
+    public void syncAfterCommit(Booking booking) {
+        Long bookingId = booking.getId();
+        LocalDateTime deadline = booking.getPaymentDeadline();
+        boolean awaitingPayment = Boolean.TRUE.equals(booking.getPayInPerson())
+                && booking.getStatus() == BookingStatus.UNPAID
+                && deadline != null;
+
+        TransactionUtils.afterCommit(() -> {
+            if (awaitingPayment) {
+                wheel.schedule(bookingId, toMillis(deadline));
+            } else {
+                wheel.cancel(bookingId);
+            }
+        });
+    }
+
+    public void removeAfterCommit(Long bookingId) {
+        TransactionUtils.afterCommit(() -> wheel.cancel(bookingId));
+    }
+
+    // In-memory only - no query runs unless a deadline has actually passed
+    @Scheduled(fixedDelay = TICK_MILLIS)
+    public void tick() {
+        List<Long> expired = wheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < expired.size(); from += RELEASE_BATCH_SIZE) {
+            List<Long> batch = expired.subList(from, Math.min(from + RELEASE_BATCH_SIZE, expired.size()));
+            try {
+                releaseBatch(batch);
+            } catch (RuntimeException e) {
+                // Put them back on the wheel rather than dropping them - the database is the source of truth
+                log.error("Releasing {} expired pay-in-person bookings failed, retrying shortly: {}", batch.size(), e.getMessage());
+                long retryAt = System.currentTimeMillis() + RETRY_DELAY_MILLIS;
+                batch.forEach(bookingId -> wheel.schedule(bookingId, retryAt));
+            }
+        }
+    }
+
+    private void releaseBatch(List<Long> bookingIds) {
+        LocalDateTime now = LocalDateTime.now();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("bookingIds", bookingIds)
+                .addValue("reason", RELEASE_REASON)
+                .addValue("now", Timestamp.valueOf(now));
+
+        int released = transactionTemplate.execute(status -> {
+            List<long[]> rows = jdbcTemplate.query(RELEASE_BATCH_SQL, params,
+                    (rs, rowNum) -> new long[]{rs.getLong("id"), rs.getLong("trainer_id")});
+
+            List<Long> releasedIds = new ArrayList<>(rows.size());
+            for (long[] row : rows) {
+                trainerScheduleIndex.removeAfterCommit(row[0], row[1]);
+                releasedIds.add(row[0]);
+            }
+            outboxService.recordBookingsCancelled(releasedIds);
+            return rows.size();
+        });
+
+        if (released > 0) {
+            log.info("Released {} pay-in-person bookings past their payment deadline", released);
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
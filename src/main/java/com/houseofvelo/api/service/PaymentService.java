@@ -1,36 +1,44 @@
 package com.houseofvelo.api.service;
 
 import com.houseofvelo.api.config.SquareProperties;
+import com.houseofvelo.api.dto.BookingResponse;
 import com.houseofvelo.api.dto.PaymentResponse;
 import com.houseofvelo.api.dto.ProcessPaymentRequest;
 import com.houseofvelo.api.dto.RefundRequest;
+import com.houseofvelo.api.event.OutboxEventTypes;
 import com.houseofvelo.api.exception.BookingNotFoundException;
 import com.houseofvelo.api.exception.PaymentFailedException;
+import com.houseofvelo.api.exception.PaymentGatewayUnavailableException;
+import com.houseofvelo.api.exception.PaymentPendingException;
 import com.houseofvelo.api.exception.PaymentProcessingException;
 import com.houseofvelo.api.exception.UnauthorizedAccessException;
 import com.houseofvelo.api.model.*;
 import com.houseofvelo.api.model.Booking;
 import com.houseofvelo.api.model.BookingStatus;
 import com.houseofvelo.api.model.Payment;
-import com.houseofvelo.api.model.Subscription;
-import com.houseofvelo.api.model.SubscriptionStatus;
+import com.houseofvelo.api.model.PaymentIntent;
+import com.houseofvelo.api.model.PaymentIntentStatus;
 import com.houseofvelo.api.repository.BookingRepository;
+import com.houseofvelo.api.repository.PaymentIntentRepository;
 import com.houseofvelo.api.repository.PaymentRepository;
 import com.houseofvelo.api.repository.SubscriptionRepository;
-import com.squareup.square.SquareClient;
+import com.squareup.square.core.SquareApiException;
 import com.squareup.square.core.SquareException;
 import com.squareup.square.types.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.servlet.View;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,18 +46,49 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PaymentService {
 
+    // Unpaid bookings must be settled this long before the session - the pay-in-person deadline
+    static final int PAYMENT_DEADLINE_HOURS = 12;
+
     private final PaymentRepository paymentRepository;
     private final BookingRepository bookingRepository;
-    private final SquareClient squareClient;
     private final SquareProperties squareProperties;
     private final View error;
     private final SubscriptionRepository subscriptionRepository;
-
-    @Transactional
+    private final TrainerScheduleIndex trainerScheduleIndex;
+    private final PaymentDeadlineScheduler paymentDeadlineScheduler;
+    private final SlotHoldService slotHoldService;
+    private final PaymentIntentRepository paymentIntentRepository;
+    private final SquareGateway squareGateway;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+    private final TokenLedgerService tokenLedgerService;
+    private final TokenCompensationService tokenCompensationService;
+    private final TokenAllocator tokenAllocator;
+
+    // Deliberately not @Transactional: a card payment must not hold a database connection while Square is called
     public PaymentResponse processPayment(ProcessPaymentRequest request, Long userId) {
+        // Pay in person or with a token - local changes only, so a single transaction
+        if (Boolean.TRUE.equals(request.getPayInPerson()) || Boolean.TRUE.equals(request.getUseToken())) {
+            return transactionTemplate.execute(status -> {
+                Booking booking = loadPayableBooking(request.getBookingId(), userId);
+                requireLiveHold(booking);
+
+                if (Boolean.TRUE.equals(request.getPayInPerson())) {
+                    return createPayInPersonPayment(booking);
+                }
+                return processTokenPayment(booking, userId);
+            });
+        }
+
+        // Card payment via Square
+        return processSquarePayment(request.getBookingId(), request.getSourceId(), userId);
+    }
+
+    // Checks shared by every payment type. Locks the booking row, so payment attempts for one booking run one at a time
+    private Booking loadPayableBooking(Long bookingId, Long userId) {
         // 1. Find the booking
-        Booking booking = bookingRepository.findById(request.getBookingId())
-                .orElseThrow(() -> new BookingNotFoundException("Booking not found: " + request.getBookingId()));
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId)
+                .orElseThrow(() -> new BookingNotFoundException("Booking not found: " + bookingId));
 
         // 2. Verify user owns this booking
         if (!booking.getUser().getId().equals(userId)) {
@@ -57,7 +96,7 @@ public class PaymentService {
         }
 
         // Check if payment already exists for the booking
-        Optional<Payment> existingPayment = paymentRepository.findByBookingId(request.getBookingId());
+        Optional<Payment> existingPayment = paymentRepository.findByBookingId(bookingId);
 
         if (existingPayment.isPresent()) {
             Payment payment = existingPayment.get();
@@ -69,32 +108,35 @@ public class PaymentService {
             }
         }
 
-        // 4. Handle pay-in-person option
-        if (Boolean.TRUE.equals(request.getPayInPerson())) {
-            return createPayInPersonPayment(booking);
+        // 3. Only bookings still awaiting payment can be paid
+        if (booking.getStatus() != BookingStatus.UNPAID) {
+            throw new IllegalStateException("This booking is not awaiting payment. Current status: " + booking.getStatus());
         }
+        return booking;
+    }
 
-        // 5. Handle pay with token
-        if (Boolean.TRUE.equals(request.getUseToken())){
-            return processTokenPayment(booking, userId);
+    // A new payment attempt needs a live checkout hold - once it expires the slot may already belong to someone else
+    private void requireLiveHold(Booking booking) {
+        if (SlotHoldService.isHoldExpired(booking)) {
+            throw new IllegalStateException("The hold on this booking has expired. Please book the session again");
         }
-
-        // 6. Process card payment via Square
-        return processSquarePayment(booking, request.getSourceId());
     }
 
     private PaymentResponse createPayInPersonPayment(Booking booking) {
         // Set payment deadline (12 hours before session)
-        LocalDateTime deadline = booking.getScheduledAt().minusHours(12);
+        LocalDateTime deadline = booking.getScheduledAt().minusHours(PAYMENT_DEADLINE_HOURS);
 
         if (deadline.isBefore(LocalDateTime.now())) {
-            throw new IllegalStateException("Pay-in-person is not available less than 12 hours before the session");
+            throw new IllegalStateException("Pay-in-person is not available less than " + PAYMENT_DEADLINE_HOURS + " hours before the session");
         }
 
-        // Update booking
+        // Update booking - the payment deadline replaces the checkout hold
         booking.setPayInPerson(true);
         booking.setPaymentDeadline(deadline);
+        booking.setHoldExpiresAt(null);
         bookingRepository.save(booking);
+        trainerScheduleIndex.syncAfterCommit(booking);
+        slotHoldService.syncAfterCommit(booking);
 
         // Create pending payment record
         Payment payment = new Payment();
@@ -105,101 +147,223 @@ public class PaymentService {
         payment.setCurrency("USD");
 
         Payment savedPayment = paymentRepository.save(payment);
+        paymentDeadlineScheduler.syncAfterCommit(booking);
 
         log.info("Pay-in-person payment created for booking {}. Deadline: {}", booking.getId(), deadline);
 
         return PaymentResponse.fromPayment(savedPayment);
     }
 
-    private PaymentResponse processSquarePayment(Booking booking, String sourceId) {
+    // Paid in full: the booking is CONFIRMED and neither its checkout hold nor a payment deadline applies any more
+    private void confirmPaidBooking(Booking booking) {
+        booking.setStatus(BookingStatus.CONFIRMED);
+        booking.setHoldExpiresAt(null);
+        bookingRepository.save(booking);
+
+        trainerScheduleIndex.syncAfterCommit(booking);
+        slotHoldService.syncAfterCommit(booking);
+        paymentDeadlineScheduler.syncAfterCommit(booking);
+    }
+
+    // Card payments run in three steps so no connection is held during the gateway call:
+    // 1. a short transaction records the attempt (or picks up the one still in flight) and commits its idempotency key
+    // 2. Square is called on the gateway pool, outside any transaction
+    // 3. a second short transaction records the outcome
+    private PaymentResponse processSquarePayment(Long bookingId, String sourceId, Long userId) {
+        CardAttempt attempt = transactionTemplate.execute(status -> openPaymentIntent(bookingId, sourceId, userId));
+
+        CreatePaymentResponse response;
         try {
-            // Convert price to cents (Square uses smallest currency unit)
-            Long amountInCents = booking.getPricePaid()
-                    .multiply(BigDecimal.valueOf(100))
-                    .longValue();
-
-            // Build Square payment request
-            CreatePaymentRequest squareRequest = CreatePaymentRequest.builder()
-                    .sourceId(sourceId)
-                    .idempotencyKey(UUID.randomUUID().toString())
-                    .amountMoney(Money.builder()
-                            .amount(amountInCents)
-                            .currency(Currency.USD)
-                            .build())
-                    .locationId(squareProperties.getLocationId())
-                    .referenceId(booking.getId().toString())
-                    .note("House of Velo - Booking #" + booking.getId())
-                    .build();
-
-            // Call Square API
-            CreatePaymentResponse response = squareClient.payments().create(squareRequest);
-
-            // Extract payment details from response
-            if (response.getPayment().isEmpty()) {
-                throw new PaymentProcessingException("Square did not return payment");
+            response = squareGateway.createPayment(attempt.request());
+        } catch (PaymentGatewayUnavailableException e) {
+            // Square was never called. A first attempt is simply failed; an earlier send's outcome is still unknown,
+            // so that intent stays PENDING and the next retry resends the same key
+            if (attempt.firstSend()) {
+                transactionTemplate.executeWithoutResult(status -> failPaymentIntent(attempt.intentId(), "GATEWAY_UNAVAILABLE"));
+            }
+            throw e;
+        } catch (SquareApiException e) {
+            if (e.statusCode() >= 500) {
+                throw paymentOutcomeUnknown(bookingId, e);
             }
+            // Square answered - the card was not charged
+            log.error("Square payment failed for booking {}: {}", bookingId, e.getMessage());
+            PaymentFailedException failure = toPaymentFailure(e);
+            transactionTemplate.executeWithoutResult(status -> failPaymentIntent(attempt.intentId(), failure.getErrorCode()));
+            throw failure;
+        } catch (TimeoutException | SquareException e) {
+            throw paymentOutcomeUnknown(bookingId, e);
+        }
 
-            // Get Square payment ID
-            String squarePaymentId = response.getPayment().get().getId().orElse(null);
-            String paymentStatus = response.getPayment().get().getStatus().orElse("UNKNOWN");
+        // Extract payment details from response
+        if (response.getPayment().isEmpty()) {
+            throw new PaymentProcessingException("Square did not return payment");
+        }
 
-            log.info("Square payment response - ID: {}, Status: {}", squarePaymentId, paymentStatus);
+        // Get Square payment ID
+        String squarePaymentId = response.getPayment().get().getId().orElse(null);
+        String paymentStatus = response.getPayment().get().getStatus().orElse("UNKNOWN");
 
-            // Update booking
-            booking.setPayInPerson(false);
-            bookingRepository.save(booking);
+        log.info("Square payment response - ID: {}, Status: {}", squarePaymentId, paymentStatus);
 
-            // Create payment record
-            Payment payment = new Payment();
-            payment.setUser(booking.getUser());
-            payment.setBooking(booking);
-            payment.setSquarePaymentId(squarePaymentId);
-            payment.setStatus(PaymentStatus.COMPLETED);
-            payment.setMethod(PaymentMethod.CARD_ONLINE);
-            payment.setAmount(booking.getPricePaid());
-            payment.setCurrency("USD");
-            payment.setPaidAt(LocalDateTime.now());
-
-            Payment savedPayment = paymentRepository.save(payment);
-
-            log.info("Payment record created for booking {}. Square Payment ID: {}",
-                    booking.getId(), squarePaymentId);
-
-            return PaymentResponse.fromPayment(savedPayment);
-
-        } catch (SquareException e) {
-            log.error("Square payment failed for booking {}: {}", booking.getId(), e.getMessage());
-
-            // Try to extract Square error details
-            String errorCode = "PAYMENT_ERROR";
-            String errorDetail = "Payment processing failed";
-            String message = e.getMessage();
-
-            // Parse error code from Square response message
-            if (message != null) {
-                if (message.contains("GENERIC_DECLINE")) {
-                    errorCode = "CARD_DECLINED";
-                    errorDetail = "Your card was declined. Please try again with a different payment method";
-                } else if (message.contains("INSUFFICIENT_FUNDS")) {
-                    errorCode = "INSUFFICIENT_FUNDS";
-                    errorDetail = "Insufficient funds, please try again.";
-                } else if (message.contains("CARD_EXPIRED")) {
-                    errorCode = "CARD_EXPIRED";
-                    errorDetail = "Your card has expired, please try a different payment method";
-                } else if (message.contains("INVALID_CARD")) {
-                    errorCode = "INVALID_CARD";
-                    errorDetail = "Invalid card number, please use another card or try again";
-                }
-            }
+        return transactionTemplate.execute(status -> completePaymentIntent(attempt.intentId(), squarePaymentId));
+    }
+
+    // No answer (or a 5xx) - Square may still charge the card. The intent stays PENDING so a retry resends the same key
+    private PaymentPendingException paymentOutcomeUnknown(Long bookingId, Exception e) {
+        log.error("Square payment outcome unknown for booking {}: {}", bookingId, e.getMessage());
+        return new PaymentPendingException(
+                "Your payment is still being processed. Check your booking shortly - retrying will not charge you twice");
+    }
 
+    private CardAttempt openPaymentIntent(Long bookingId, String sourceId, Long userId) {
+        Booking booking = loadPayableBooking(bookingId, userId);
+
+        // A retry of an attempt whose outcome we never saw resends the identical request, card token included
+        PaymentIntent intent = paymentIntentRepository
+                .findFirstByBookingIdAndStatusOrderByCreatedAtDesc(bookingId, PaymentIntentStatus.PENDING)
+                .orElseGet(() -> newPaymentIntent(booking, sourceId));
+        intent.setAttempts(intent.getAttempts() + 1);
+        PaymentIntent savedIntent = paymentIntentRepository.save(intent);
+
+        // Keep the checkout hold alive for the length of the call so the slot is not released mid-payment
+        LocalDateTime holdNeededUntil = LocalDateTime.now().plus(squareGateway.getCallTimeout()).plusMinutes(1);
+        if (booking.getHoldExpiresAt() != null && booking.getHoldExpiresAt().isBefore(holdNeededUntil)) {
+            booking.setHoldExpiresAt(holdNeededUntil);
             bookingRepository.save(booking);
+            trainerScheduleIndex.syncAfterCommit(booking);
+            slotHoldService.syncAfterCommit(booking);
+        }
 
-            throw new PaymentFailedException(errorCode, errorDetail);
+        // Convert price to cents (Square uses smallest currency unit)
+        Long amountInCents = savedIntent.getAmount()
+                .multiply(BigDecimal.valueOf(100))
+                .longValue();
+
+        // Build Square payment request
+        CreatePaymentRequest squareRequest = CreatePaymentRequest.builder()
+                .sourceId(savedIntent.getSourceId())
+                .idempotencyKey(savedIntent.getIdempotencyKey())
+                .amountMoney(Money.builder()
+                        .amount(amountInCents)
+                        .currency(Currency.USD)
+                        .build())
+                .locationId(squareProperties.getLocationId())
+                .referenceId(squareReferenceId(booking.getId(), savedIntent.getId()))
+                .note("House of Velo - Booking #" + booking.getId())
+                .build();
+
+        return new CardAttempt(savedIntent.getId(), squareRequest, savedIntent.getAttempts() == 1);
+    }
 
-        } catch (Exception e){
-            log.error("Unexpected error for booking {}: {}", booking.getId(), e.getMessage());
-            throw new PaymentFailedException("PAYMENT_ERROR", "An unexpected error occurred");
+    // "<bookingId>-<intentId>": webhooks for the payment then name the exact attempt that created it
+    static String squareReferenceId(Long bookingId, Long intentId) {
+        return bookingId + "-" + intentId;
+    }
+
+    private PaymentIntent newPaymentIntent(Booking booking, String sourceId) {
+        requireLiveHold(booking);
+        if (sourceId == null || sourceId.isBlank()) {
+            throw new IllegalArgumentException("sourceId is required for card payments");
         }
+
+        PaymentIntent intent = new PaymentIntent();
+        intent.setBooking(booking);
+        intent.setUser(booking.getUser());
+        intent.setIdempotencyKey(UUID.randomUUID().toString());
+        intent.setSourceId(sourceId);
+        intent.setAmount(booking.getPricePaid());
+        intent.setCurrency("USD");
+        intent.setStatus(PaymentIntentStatus.PENDING);
+        return intent;
+    }
+
+    // Records a successful card payment. Also called by the Square webhook processor when the request path never saw
+    // the outcome (e.g. the call timed out). Must run inside a transaction
+    public PaymentResponse completePaymentIntent(Long intentId, String squarePaymentId) {
+        Long bookingId = paymentIntentRepository.findBookingIdById(intentId)
+                .orElseThrow(() -> new PaymentProcessingException("Payment attempt not found: " + intentId));
+
+        // Lock the booking before looking at the intent, so a retry and the webhook completing the same attempt
+        // run one after the other
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId)
+                .orElseThrow(() -> new BookingNotFoundException("Booking not found: " + bookingId));
+        PaymentIntent intent = paymentIntentRepository.findById(intentId)
+                .orElseThrow(() -> new PaymentProcessingException("Payment attempt not found: " + intentId));
+
+        // Re-read under the lock (the intent may have been loaded before it): a concurrent completion got here first
+        if (paymentIntentRepository.findStatusById(intentId).orElse(null) == PaymentIntentStatus.SUCCEEDED) {
+            return paymentRepository.findByBookingId(booking.getId())
+                    .map(PaymentResponse::fromPayment)
+                    .orElseThrow(() -> new PaymentProcessingException("Payment record missing for booking " + booking.getId()));
+        }
+
+        intent.setStatus(PaymentIntentStatus.SUCCEEDED);
+        intent.setSquarePaymentId(squarePaymentId);
+        paymentIntentRepository.save(intent);
+
+        // Update booking
+        booking.setPayInPerson(false);
+        if (booking.getStatus() == BookingStatus.UNPAID) {
+            confirmPaidBooking(booking);
+        } else {
+            log.warn("Booking {} was {} by the time card payment {} completed - it needs a refund",
+                    booking.getId(), booking.getStatus(), squarePaymentId);
+        }
+
+        // Create payment record
+        Payment payment = new Payment();
+        payment.setUser(booking.getUser());
+        payment.setBooking(booking);
+        payment.setSquarePaymentId(squarePaymentId);
+        payment.setStatus(PaymentStatus.COMPLETED);
+        payment.setMethod(PaymentMethod.CARD_ONLINE);
+        payment.setAmount(intent.getAmount());
+        payment.setCurrency(intent.getCurrency());
+        payment.setPaidAt(LocalDateTime.now());
+
+        Payment savedPayment = paymentRepository.save(payment);
+
+        log.info("Payment record created for booking {}. Square Payment ID: {}",
+                booking.getId(), squarePaymentId);
+
+        PaymentResponse paymentResponse = PaymentResponse.fromPayment(savedPayment);
+        outboxService.record("payment", savedPayment.getId(), OutboxEventTypes.PAYMENT_COMPLETED, paymentResponse);
+        return paymentResponse;
+    }
+
+    // Must run inside a transaction (also used by the Square webhook processor)
+    public void failPaymentIntent(Long intentId, String failureCode) {
+        paymentIntentRepository.findById(intentId).ifPresent(intent -> {
+            intent.setStatus(PaymentIntentStatus.FAILED);
+            intent.setFailureCode(failureCode);
+            paymentIntentRepository.save(intent);
+        });
+    }
+
+    // Map Square's error codes to messages we can show the customer
+    private PaymentFailedException toPaymentFailure(SquareException e) {
+        String errorCode = "PAYMENT_ERROR";
+        String errorDetail = "Payment processing failed";
+        String message = e.getMessage();
+
+        // Parse error code from Square response message
+        if (message != null) {
+            if (message.contains("GENERIC_DECLINE")) {
+                errorCode = "CARD_DECLINED";
+                errorDetail = "Your card was declined. Please try again with a different payment method";
+            } else if (message.contains("INSUFFICIENT_FUNDS")) {
+                errorCode = "INSUFFICIENT_FUNDS";
+                errorDetail = "Insufficient funds, please try again.";
+            } else if (message.contains("CARD_EXPIRED")) {
+                errorCode = "CARD_EXPIRED";
+                errorDetail = "Your card has expired, please try a different payment method";
+            } else if (message.contains("INVALID_CARD")) {
+                errorCode = "INVALID_CARD";
+                errorDetail = "Invalid card number, please use another card or try again";
+            }
+        }
+        return new PaymentFailedException(errorCode, errorDetail);
     }
 
     public List<PaymentResponse> getMyPayments(Long userId) {
@@ -247,17 +411,20 @@ public class PaymentService {
 
         // Update booking
         Booking booking = payment.getBooking();
-        bookingRepository.save(booking);
+        confirmPaidBooking(booking);
 
         Payment savedPayment = paymentRepository.save(payment);
 
         log.info("Payment {} received. Method: {}, Amount: ${}",
                 paymentId, method, payment.getAmount());
 
-        return PaymentResponse.fromPayment(savedPayment);
+        PaymentResponse response = PaymentResponse.fromPayment(savedPayment);
+        outboxService.record("payment", savedPayment.getId(), OutboxEventTypes.PAYMENT_COMPLETED, response);
+        return response;
 
     }
 
+    // Not @Transactional: the Square refund runs first, then one short transaction records it
     public PaymentResponse refundPayment(Long paymentId, String reason, Long staffUserId){
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new RuntimeException("Payment not found: " + paymentId));
@@ -268,14 +435,26 @@ public class PaymentService {
         }
 
         // If it was an online card payment, process refund through square
+        String squareRefundId = null;
         if (payment.getMethod() == PaymentMethod.CARD_ONLINE && payment.getSquarePaymentId() != null){
-            processSquareRefund(payment);
+            squareRefundId = processSquareRefund(payment);
         }
 
+        String refundId = squareRefundId;
+        return transactionTemplate.execute(status -> recordRefund(paymentId, reason, refundId));
+    }
+
+    private PaymentResponse recordRefund(Long paymentId, String reason, String squareRefundId) {
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new RuntimeException("Payment not found: " + paymentId));
+
         // Update payment record
         payment.setStatus(PaymentStatus.REFUNDED);
         payment.setRefundReason(reason);
         payment.setRefundedAt(LocalDateTime.now());
+        if (squareRefundId != null) {
+            payment.setSquareRefundId(squareRefundId);
+        }
 
         // Update booking status to cancelled
         Booking booking = payment.getBooking();
@@ -283,50 +462,62 @@ public class PaymentService {
         booking.setCancellationReason("Payment refunded: " + reason);
         booking.setCancelledAt(LocalDateTime.now());
         bookingRepository.save(booking);
+        trainerScheduleIndex.syncAfterCommit(booking);
+        paymentDeadlineScheduler.syncAfterCommit(booking);
+        tokenCompensationService.compensateCancelledBooking(booking, "payment refunded");
 
         Payment savedPayment = paymentRepository.save(payment);
 
         log.info("Payment {} refunded. Reason: {}, Method: {}", payment, reason, payment.getMethod());
 
-        return PaymentResponse.fromPayment(savedPayment);
+        PaymentResponse response = PaymentResponse.fromPayment(savedPayment);
+        outboxService.record("payment", savedPayment.getId(), OutboxEventTypes.PAYMENT_REFUNDED, response);
+        outboxService.record("booking", booking.getId(), OutboxEventTypes.BOOKING_CANCELLED, BookingResponse.fromBooking(booking));
+        return response;
     }
 
-    private void processSquareRefund(Payment payment){
-
-        try{
-            // Build Money object for the refund amount
-            Long amountInCents = payment.getAmount().multiply(BigDecimal.valueOf(100)).longValue();
-
-            // Build the RefundPaymentRequest
-            RefundPaymentRequest refundRequest = RefundPaymentRequest.builder()
-                    .idempotencyKey(UUID.randomUUID().toString())
-                    .amountMoney(Money.builder()
-                            .amount(amountInCents)
-                            .currency(Currency.USD)
-                            .build())
-                    .paymentId(payment.getSquarePaymentId())
-                    .reason("House of Velo Refund - Booking #" + payment.getBooking().getId())
-                    .build();
+    private String processSquareRefund(Payment payment){
+        // Build Money object for the refund amount
+        Long amountInCents = payment.getAmount().multiply(BigDecimal.valueOf(100)).longValue();
+
+        // Build the RefundPaymentRequest. One key per payment, so retrying a refund whose outcome was lost
+        // cannot refund twice
+        RefundPaymentRequest refundRequest = RefundPaymentRequest.builder()
+                .idempotencyKey("refund-" + payment.getId())
+                .amountMoney(Money.builder()
+                        .amount(amountInCents)
+                        .currency(Currency.USD)
+                        .build())
+                .paymentId(payment.getSquarePaymentId())
+                .reason("House of Velo Refund - Booking #" + payment.getBooking().getId())
+                .build();
 
+        try {
             // Call the Refund Payment API
-            PaymentRefund refund = squareClient.refunds()
-                    .refundPayment(refundRequest)
+            PaymentRefund refund = squareGateway.refundPayment(refundRequest)
                     .getRefund()
-                            .orElseThrow(() -> new RuntimeException("Could not obtain refund from API"));
-
-            payment.setSquareRefundId(refund.getId());
+                            .orElseThrow(() -> new PaymentFailedException("REFUND_FAILED", "Square did not return the refund"));
 
             log.info("Square refund processed. Refund ID: {}", refund.getId());
+            return refund.getId();
 
-        } catch(SquareException e) {
+        } catch (SquareApiException e) {
+            if (e.statusCode() >= 500) {
+                throw refundOutcomeUnknown(payment, e);
+            }
             log.error("Square refund failed: {}", e.getMessage());
             throw new PaymentFailedException("REFUND_FAILED", "Failed to process refund");
-        } catch (Exception e){
-            log.error("Unexpected error during refund: {}", e.getMessage());
-            throw new PaymentFailedException("REFUND_FAILED", "An unexpected error occured during refund process");
+        } catch (TimeoutException | SquareException e) {
+            throw refundOutcomeUnknown(payment, e);
         }
     }
 
+    // Square's refund.updated webhook records the refund if it went through; retrying reuses the same key
+    private PaymentPendingException refundOutcomeUnknown(Payment payment, Exception e) {
+        log.error("Square refund outcome unknown for payment {}: {}", payment.getId(), e.getMessage());
+        return new PaymentPendingException("The refund is still being processed. Check the payment shortly before retrying");
+    }
+
     // Helper method to process token payments
     public PaymentResponse processTokenPayment(Booking booking, Long userId){
         // Booking must have a player to use token payment
@@ -334,29 +525,19 @@ public class PaymentService {
             throw new IllegalStateException("Booking must have a player to use token payment");
         }
 
-        // Find active subscription for this player with available tokens
-        List<Subscription> subscriptions = subscriptionRepository
-                .findByPlayerIdAndStatusAndTokensRemainingGreaterThan(
-                        booking.getPlayer().getId(),
-                        SubscriptionStatus.ACTIVE,
-                        0
-                );
-
-        if (subscriptions.isEmpty()) {
+        // Ranked by the configured TokenAllocationStrategy; the spend itself re-checks the balance
+        List<Long> candidateIds = tokenAllocator.candidates(booking);
+        if (candidateIds.isEmpty()) {
             throw new IllegalStateException("No active subscription with available tokens for this player");
         }
 
-        // Use the first available subscription (could be enhanced to match sessionTypeOption)
-        Subscription subscription = subscriptions.get(0);
-
-        // Deduct token
-        subscription.setTokensRemaining(subscription.getTokensRemaining() - 1);
-        subscriptionRepository.save(subscription);
+        TokenLedgerService.SpentToken spent = tokenLedgerService.spendToken(candidateIds, booking.getId())
+                .orElseThrow(() -> new IllegalStateException("No active subscription with available tokens for this player"));
 
         // Link booking to subscription
-        booking.setSubscription(subscription);
+        booking.setSubscription(subscriptionRepository.getReferenceById(spent.subscriptionId()));
         booking.setPayInPerson(false);
-        bookingRepository.save(booking);
+        confirmPaidBooking(booking);
 
         // Create completed payment
         Payment payment = new Payment();
@@ -371,8 +552,19 @@ public class PaymentService {
         Payment savedPayment = paymentRepository.save(payment);
 
         log.info("Token payment processed for booking {}. Tokens remaining: {}",
-                booking.getId(), subscription.getTokensRemaining());
+                booking.getId(), spent.balanceAfter());
+
+        PaymentResponse response = PaymentResponse.fromPayment(savedPayment);
+        outboxService.record("payment", savedPayment.getId(), OutboxEventTypes.PAYMENT_COMPLETED, response);
+        outboxService.record("subscription", spent.subscriptionId(), OutboxEventTypes.TOKEN_USED, Map.of(
+                "subscriptionId", spent.subscriptionId(),
+                "bookingId", booking.getId(),
+                "playerId", booking.getPlayer().getId(),
+                "tokensRemaining", spent.balanceAfter()
+        ));
+        return response;
+    }
 
-        return PaymentResponse.fromPayment(savedPayment);
+    private record CardAttempt(Long intentId, CreatePaymentRequest request, boolean firstSend) {
     }
 }
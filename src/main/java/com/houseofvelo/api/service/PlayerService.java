@@ -6,6 +6,7 @@ import com.houseofvelo.api.dto.UpdatePlayerRequest;
 import com.houseofvelo.api.exception.PlayerNotFoundException;
 import com.houseofvelo.api.exception.UnauthorizedAccessException;
 import com.houseofvelo.api.model.Player;
+import com.houseofvelo.api.model.Role;
 import com.houseofvelo.api.model.User;
 import com.houseofvelo.api.repository.PlayerRepository;
 import com.houseofvelo.api.repository.UserRepository;
@@ -22,12 +23,13 @@ public class PlayerService {
 
     private final PlayerRepository playerRepository;
     private final UserRepository userRepository;
+    private final AuthenticatedUserService authenticatedUserService;
 
     @Transactional
     public PlayerResponse createPlayer(CreatePlayerRequest request, Long parentId){
 
-        User parent = userRepository.findById(parentId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // parentId is the authenticated caller, so the user row is known to exist
+        User parent = userRepository.getReferenceById(parentId);
 
         // Create new player
         Player player = new Player();
@@ -41,17 +43,15 @@ public class PlayerService {
         player.setImageUrl(request.getImageUrl());
 
         Player savedPlayer = playerRepository.save(player);
+        authenticatedUserService.evictAfterCommit(parentId);
         return PlayerResponse.fromPlayer(savedPlayer);
     }
 
-    public List<PlayerResponse> getMyPlayers(Long userId){
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
+    public List<PlayerResponse> getMyPlayers(Long userId, Role role){
         List<Player> players;
 
         // If independent player, find their own player record
-        if (user.getRole().name().equals("PLAYER")){
+        if (role == Role.PLAYER){
             players = playerRepository.findByUserId(userId)
                     .map(List::of)
                     .orElse(List.of());
@@ -126,6 +126,7 @@ public class PlayerService {
         }
 
         playerRepository.delete(player);
+        authenticatedUserService.evictAfterCommit(userId);
     }
 
     // Helper method to check if user can access this player
@@ -22,6 +22,7 @@ public class SessionTypeOptionService {
 
     private final SessionTypeOptionRepository optionRepository;
     private final SessionTypeRepository sessionTypeRepository;
+    private final CatalogCache catalogCache;
 
     // PUBLIC: Get active options for a session type
     public List<SessionTypeOptionResponse> getActiveOptions(Long sessionTypeId){
@@ -72,6 +73,7 @@ public class SessionTypeOptionService {
         option.setIsActive(true);
 
         SessionTypeOption saved = optionRepository.save(option);
+        evictOptions(sessionTypeId);
         return SessionTypeOptionResponse.fromOption(saved);
 
     }
@@ -112,6 +114,7 @@ public class SessionTypeOptionService {
         }
 
         SessionTypeOption updated = optionRepository.save(option);
+        evictOptions(updated.getSessionType().getId());
         return SessionTypeOptionResponse.fromOption(updated);
     }
 
@@ -122,5 +125,11 @@ public class SessionTypeOptionService {
                 .orElseThrow(() -> new SessionTypeOptionNotFoundException("Option not found for this session type"));
 
         optionRepository.delete(option);
+        evictOptions(option.getSessionType().getId());
+    }
+
+    // Options appear in their session type's detail view and its options list
+    private void evictOptions(Long sessionTypeId) {
+        catalogCache.evictAfterCommit(CatalogCache.sessionType(sessionTypeId), CatalogCache.sessionTypeOptions(sessionTypeId));
     }
 }
@@ -18,6 +18,7 @@ import java.util.stream.Collectors;
 public class SessionTypeService {
 
     private final SessionTypeRepository sessionTypeRepository;
+    private final CatalogCache catalogCache;
 
     // PUBLIC: Get all active session types (customers view this)
     public List<SessionTypeResponse> getAllActiveSessionTypes() {
@@ -53,6 +54,7 @@ public class SessionTypeService {
         sessionType.setIsActive(true);  // New session types default to active
 
         SessionType saved = sessionTypeRepository.save(sessionType);
+        catalogCache.evictAfterCommit(CatalogCache.SESSION_TYPES);
         return SessionTypeResponse.fromSessionType(saved, false);
     }
 
@@ -77,6 +79,8 @@ public class SessionTypeService {
         }
 
         SessionType updated = sessionTypeRepository.save(sessionType);
+        // Options carry their session type's name, so their list goes too
+        catalogCache.evictAfterCommit(CatalogCache.SESSION_TYPES, CatalogCache.sessionType(id), CatalogCache.sessionTypeOptions(id));
         return SessionTypeResponse.fromSessionType(updated, true);  // Include options after update
     }
 
@@ -88,5 +92,6 @@ public class SessionTypeService {
 
         // Note: This will cascade delete all options because of orphanRemoval = true
         sessionTypeRepository.delete(sessionType);
+        catalogCache.evictAfterCommit(CatalogCache.SESSION_TYPES, CatalogCache.sessionType(id), CatalogCache.sessionTypeOptions(id));
     }
 }
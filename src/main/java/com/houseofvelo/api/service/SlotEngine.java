@@ -0,0 +1,133 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.model.TrainerAvailability;
+import com.houseofvelo.api.service.TrainerScheduleIndex.BookedInterval;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Turns a trainer's weekly availability windows minus their booked intervals into bookable start times.
+ * Every day is a 96-bit grid of 15-minute slots, so a 90-day calendar is a few hundred BitSet operations.
+ */
+@Component
+public class SlotEngine {
+
+    public static final int SLOT_MINUTES = 15;
+    private static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    // Start times in [earliest, latest] where a session of durationMinutes fits, in time order, capped at limit
+    public List<LocalDateTime> openStartTimes(
+            List<TrainerAvailability> availabilities,
+            List<BookedInterval> booked,
+            LocalDateTime earliest,
+            LocalDateTime latest,
+            int durationMinutes,
+            int limit
+    ) {
+        List<LocalDateTime> starts = new ArrayList<>();
+        if (availabilities.isEmpty() || earliest.isAfter(latest) || limit <= 0) {
+            return starts;
+        }
+
+        Map<DayOfWeek, List<BitSet>> windowsByDay = windowsByDay(availabilities);
+        Map<LocalDate, BitSet> busyByDay = busyByDay(booked);
+        int slotsNeeded = (durationMinutes + SLOT_MINUTES - 1) / SLOT_MINUTES;
+
+        for (LocalDate day = earliest.toLocalDate(); !day.isAfter(latest.toLocalDate()); day = day.plusDays(1)) {
+            List<BitSet> windows = windowsByDay.get(day.getDayOfWeek());
+            if (windows == null) {
+                continue;
+            }
+
+            BitSet dayStarts = fittingStarts(windows, busyByDay.get(day), slotsNeeded);
+
+            // Apply the advance-booking window on the first and last day
+            if (day.equals(earliest.toLocalDate())) {
+                dayStarts.clear(0, Math.min(ceilSlot(earliest.toLocalTime()), SLOTS_PER_DAY));
+            }
+            if (day.equals(latest.toLocalDate())) {
+                dayStarts.clear(Math.min(floorSlot(latest.toLocalTime()) + 1, SLOTS_PER_DAY), SLOTS_PER_DAY);
+            }
+
+            for (int slot = dayStarts.nextSetBit(0); slot >= 0; slot = dayStarts.nextSetBit(slot + 1)) {
+                starts.add(day.atStartOfDay().plusMinutes((long) slot * SLOT_MINUTES));
+                if (starts.size() >= limit) {
+                    return starts;
+                }
+            }
+        }
+        return starts;
+    }
+
+    // A start slot is open when slotsNeeded consecutive slots are free inside a single availability window
+    private BitSet fittingStarts(List<BitSet> windows, BitSet busy, int slotsNeeded) {
+        BitSet starts = new BitSet(SLOTS_PER_DAY);
+        for (BitSet window : windows) {
+            BitSet free = (BitSet) window.clone();
+            if (busy != null) {
+                free.andNot(busy);
+            }
+
+            BitSet fits = (BitSet) free.clone();
+            for (int offset = 1; offset < slotsNeeded && !fits.isEmpty(); offset++) {
+                fits.and(free.get(offset, SLOTS_PER_DAY));
+            }
+            starts.or(fits);
+        }
+        return starts;
+    }
+
+    private Map<DayOfWeek, List<BitSet>> windowsByDay(List<TrainerAvailability> availabilities) {
+        Map<DayOfWeek, List<BitSet>> windowsByDay = new EnumMap<>(DayOfWeek.class);
+        for (TrainerAvailability availability : availabilities) {
+            if (!Boolean.TRUE.equals(availability.getIsAvailable())) {
+                continue;
+            }
+            int from = ceilSlot(availability.getStartTime());
+            int to = floorSlot(availability.getEndTime());
+            if (from >= to) {
+                continue;
+            }
+
+            BitSet window = new BitSet(SLOTS_PER_DAY);
+            window.set(from, to);
+            windowsByDay.computeIfAbsent(availability.getDayOfWeek(), day -> new ArrayList<>()).add(window);
+        }
+        return windowsByDay;
+    }
+
+    private Map<LocalDate, BitSet> busyByDay(List<BookedInterval> booked) {
+        Map<LocalDate, BitSet> busyByDay = new HashMap<>();
+        for (BookedInterval interval : booked) {
+            // Bookings may cross midnight, so mark them day by day
+            LocalDateTime cursor = interval.start();
+            while (cursor.isBefore(interval.end())) {
+                LocalDate day = cursor.toLocalDate();
+                LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+                LocalDateTime segmentEnd = interval.end().isBefore(dayEnd) ? interval.end() : dayEnd;
+
+                int from = floorSlot(cursor.toLocalTime());
+                int to = segmentEnd.equals(dayEnd) ? SLOTS_PER_DAY : ceilSlot(segmentEnd.toLocalTime());
+                busyByDay.computeIfAbsent(day, d -> new BitSet(SLOTS_PER_DAY)).set(from, to);
+
+                cursor = segmentEnd;
+            }
+        }
+        return busyByDay;
+    }
+
+    private static int floorSlot(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    private static int ceilSlot(LocalTime time) {
+        int minutes = time.getHour() * 60 + time.getMinute();
+        boolean partial = minutes % SLOT_MINUTES != 0 || time.getSecond() != 0 || time.getNano() != 0;
+        return minutes / SLOT_MINUTES + (partial ? 1 : 0);
+    }
+}
@@ -0,0 +1,187 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.model.Booking;
+import com.houseofvelo.api.model.BookingStatus;
+import com.houseofvelo.api.repository.BookingRepository;
+import com.houseofvelo.api.util.HierarchicalTimingWheel;
+import com.houseofvelo.api.util.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checkout holds: a new booking is UNPAID and holds its slot for HOLD_MINUTES while the customer pays
+ * (sessions of a recurring series hold theirs until their payment deadline, see seriesHoldExpiry).
+ * Conflict checks already ignore expired holds, so this service only tidies up - it cancels expired holds
+ * in bulk, and releases any that overlap a new booking before it is inserted (the exclusion constraint
+ * cannot tell an expired hold from a live one).
+ */
+@Service
+@Slf4j
+public class SlotHoldService {
+
+    public static final int HOLD_MINUTES = 15;
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 2;
+
+    private static final int RELEASE_BATCH_SIZE = 500;
+    private static final long RETRY_DELAY_MILLIS = 30_000;
+    private static final String RELEASE_REASON = "Checkout hold expired before payment";
+
+    private static final String RELEASE_EXPIRED_SQL =
+            "UPDATE bookings SET status = 'CANCELLED', cancelled_at = :now, cancellation_reason = :reason, updated_at = :now " +
+            "WHERE id IN (:bookingIds) " +
+            "AND status = 'UNPAID' " +
+            "AND hold_expires_at <= :now " +
+            "RETURNING id, trainer_id";
+
+    private static final String RELEASE_EXPIRED_OVERLAPPING_SQL =
+            "UPDATE bookings SET status = 'CANCELLED', cancelled_at = :now, cancellation_reason = :reason, updated_at = :now " +
+            "WHERE trainer_id = :trainerId " +
+            "AND status = 'UNPAID' " +
+            "AND hold_expires_at <= :now " +
+            "AND time_range && tsrange(CAST(:startTime AS timestamp), CAST(:endTime AS timestamp), '[)') " +
+            "RETURNING id, trainer_id";
+
+    private static final RowMapper<long[]> RELEASED_ROW =
+            (rs, rowNum) -> new long[]{rs.getLong("id"), rs.getLong("trainer_id")};
+
+    private final BookingRepository bookingRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TrainerScheduleIndex trainerScheduleIndex;
+    private final OutboxService outboxService;
+
+    // Checkout holds fit in two levels (~68 minutes); the longer series holds wait in the top level until due
+    private final HierarchicalTimingWheel<Long> wheel =
+            new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+
+    public SlotHoldService(
+            BookingRepository bookingRepository,
+            NamedParameterJdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            TrainerScheduleIndex trainerScheduleIndex,
+            OutboxService outboxService
+    ) {
+        this.bookingRepository = bookingRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.trainerScheduleIndex = trainerScheduleIndex;
+        this.outboxService = outboxService;
+    }
+
+    public LocalDateTime newHoldExpiry() {
+        return LocalDateTime.now().plusMinutes(HOLD_MINUTES);
+    }
+
+    // A session booked as part of a series is paid on its own, possibly weeks later, so its hold runs until the
+    // payment deadline before that session rather than a single checkout - never shorter than a normal hold
+    public LocalDateTime seriesHoldExpiry(LocalDateTime scheduledAt) {
+        LocalDateTime checkoutHold = newHoldExpiry();
+        LocalDateTime deadline = scheduledAt.minusHours(PaymentService.PAYMENT_DEADLINE_HOURS);
+        return deadline.isAfter(checkoutHold) ? deadline : checkoutHold;
+    }
+
+    public static boolean isHoldExpired(Booking booking) {
+        return booking.getStatus() == BookingStatus.UNPAID
+                && booking.getHoldExpiresAt() != null
+                && !booking.getHoldExpiresAt().isAfter(LocalDateTime.now());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<BookingRepository.SlotHold> holds = bookingRepository.findSlotHolds();
+        holds.forEach(hold -> wheel.schedule(hold.getBookingId(), toMillis(hold.getHoldExpiresAt())));
+        log.info("Slot hold wheel loaded with {} checkout holds", holds.size());
+    }
+
+    // Track or forget a booking's hold once the surrounding transaction commits. A stale entry is harmless -
+    // the release re-checks status and expiry - so only creation and payment need to call this
+    public void syncAfterCommit(Booking booking) {
+        Long bookingId = booking.getId();
+        LocalDateTime holdExpiresAt = booking.getHoldExpiresAt();
+        boolean held = booking.getStatus() == BookingStatus.UNPAID && holdExpiresAt != null;
+
+        TransactionUtils.afterCommit(() -> {
+            if (held) {
+                wheel.schedule(bookingId, toMillis(holdExpiresAt));
+            } else {
+                wheel.cancel(bookingId);
+            }
+        });
+    }
+
+    public void removeAfterCommit(Long bookingId) {
+        TransactionUtils.afterCommit(() -> wheel.cancel(bookingId));
+    }
+
+    // Called by createBooking under the trainer's schedule lock, inside its transaction
+    public void releaseExpiredOverlapping(Long trainerId, LocalDateTime start, LocalDateTime end) {
+        MapSqlParameterSource params = releaseParams(LocalDateTime.now())
+                .addValue("trainerId", trainerId)
+                .addValue("startTime", Timestamp.valueOf(start))
+                .addValue("endTime", Timestamp.valueOf(end));
+
+        List<long[]> released = jdbcTemplate.query(RELEASE_EXPIRED_OVERLAPPING_SQL, params, RELEASED_ROW);
+        afterRelease(released);
+    }
+
+    @Scheduled(fixedDelay = TICK_MILLIS)
+    public void tick() {
+        List<Long> expired = wheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < expired.size(); from += RELEASE_BATCH_SIZE) {
+            List<Long> batch = expired.subList(from, Math.min(from + RELEASE_BATCH_SIZE, expired.size()));
+            try {
+                int released = transactionTemplate.execute(status -> {
+                    MapSqlParameterSource params = releaseParams(LocalDateTime.now()).addValue("bookingIds", batch);
+                    List<long[]> rows = jdbcTemplate.query(RELEASE_EXPIRED_SQL, params, RELEASED_ROW);
+                    afterRelease(rows);
+                    return rows.size();
+                });
+                if (released > 0) {
+                    log.info("Cancelled {} bookings whose checkout hold expired", released);
+                }
+            } catch (RuntimeException e) {
+                log.error("Releasing {} expired checkout holds failed, retrying shortly: {}", batch.size(), e.getMessage());
+                long retryAt = System.currentTimeMillis() + RETRY_DELAY_MILLIS;
+                batch.forEach(bookingId -> wheel.schedule(bookingId, retryAt));
+            }
+        }
+    }
+
+    private MapSqlParameterSource releaseParams(LocalDateTime now) {
+        return new MapSqlParameterSource()
+                .addValue("reason", RELEASE_REASON)
+                .addValue("now", Timestamp.valueOf(now));
+    }
+
+    // Inside the releasing transaction
+    private void afterRelease(List<long[]> released) {
+        List<Long> bookingIds = new ArrayList<>(released.size());
+        for (long[] row : released) {
+            trainerScheduleIndex.removeAfterCommit(row[0], row[1]);
+            removeAfterCommit(row[0]);
+            bookingIds.add(row[0]);
+        }
+        outboxService.recordBookingsCancelled(bookingIds);
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,169 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.config.SquareProperties;
+import com.houseofvelo.api.exception.PaymentGatewayUnavailableException;
+import com.houseofvelo.api.util.CircuitBreaker;
+import com.squareup.square.SquareClient;
+import com.squareup.square.core.SquareApiException;
+import com.squareup.square.types.CreatePaymentRequest;
+import com.squareup.square.types.CreatePaymentResponse;
+import com.squareup.square.types.RefundPaymentRequest;
+import com.squareup.square.types.RefundPaymentResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Every Square API call goes through here. Three layers keep a Square brownout from spreading to the rest of the API:
+ * a bounded pool (bulkhead) so only a fixed number of request threads can ever wait on Square, a hard per-call
+ * timeout, and a circuit breaker that fails calls fast with a 503 once Square keeps failing. Callers must not hold
+ * a transaction open across a call.
+ *
+ * Metrics: square.calls (timer, by operation and outcome), square.calls.rejected (by reason),
+ * square.circuit.state (1 for the current state), square.bulkhead.active / square.bulkhead.queued.
+ */
+@Component
+@Slf4j
+public class SquareGateway {
+
+    private final SquareClient squareClient;
+    private final Duration callTimeout;
+    private final ThreadPoolExecutor executor;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+
+    public SquareGateway(SquareClient squareClient, SquareProperties squareProperties, MeterRegistry meterRegistry) {
+        this.squareClient = squareClient;
+        this.callTimeout = squareProperties.getCallTimeout();
+        this.executor = newExecutor(squareProperties.getMaxConcurrentCalls(), squareProperties.getMaxQueuedCalls());
+        this.meterRegistry = meterRegistry;
+
+        SquareProperties.Breaker breaker = squareProperties.getBreaker();
+        this.circuitBreaker = new CircuitBreaker(breaker.getWindowSize(), breaker.getMinimumCalls(),
+                breaker.getFailureRateThreshold(), breaker.getOpenDuration().toMillis(), breaker.getTrialCalls(),
+                System::currentTimeMillis);
+
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("square.circuit.state", circuitBreaker, cb -> cb.getState() == state ? 1 : 0)
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .description("1 for the current state of the Square circuit breaker")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("square.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Square calls in flight")
+                .register(meterRegistry);
+        Gauge.builder("square.bulkhead.queued", executor, pool -> pool.getQueue().size())
+                .description("Square calls waiting for a gateway thread")
+                .register(meterRegistry);
+    }
+
+    public Duration getCallTimeout() {
+        return callTimeout;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    // Square errors (declines etc.) propagate as-is; a timeout leaves the outcome unknown and throws TimeoutException.
+    // PaymentGatewayUnavailableException means Square was never called
+    public CreatePaymentResponse createPayment(CreatePaymentRequest request) throws TimeoutException {
+        return call("payments.create", () -> squareClient.payments().create(request));
+    }
+
+    public RefundPaymentResponse refundPayment(RefundPaymentRequest request) throws TimeoutException {
+        return call("refunds.create", () -> squareClient.refunds().refundPayment(request));
+    }
+
+    private <T> T call(String operation, Callable<T> action) throws TimeoutException {
+        if (!circuitBreaker.tryAcquire()) {
+            rejected(operation, "circuit_open");
+            long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(circuitBreaker.getRetryAfterMillis()));
+            throw new PaymentGatewayUnavailableException(
+                    "Payments are temporarily unavailable, please try again shortly", retryAfterSeconds);
+        }
+
+        Future<T> future;
+        try {
+            future = executor.submit(action);
+        } catch (RejectedExecutionException e) {
+            circuitBreaker.release();
+            rejected(operation, "bulkhead_full");
+            throw new PaymentGatewayUnavailableException("Payment service is busy, please try again shortly", 1);
+        }
+
+        long startedAt = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = future.get(callTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            outcome = "success";
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            circuitBreaker.onFailure();
+            outcome = "timeout";
+            log.warn("Square {} timed out after {} ms", operation, callTimeout.toMillis());
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            circuitBreaker.release();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Square");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // A 4xx (decline, bad request) is Square working as intended - only 5xx and transport errors trip the breaker
+            if (cause instanceof SquareApiException apiException && apiException.statusCode() < 500) {
+                circuitBreaker.onSuccess();
+                outcome = "client_error";
+            } else {
+                circuitBreaker.onFailure();
+                outcome = cause instanceof SquareApiException ? "server_error" : "error";
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Square " + operation + " failed", cause);
+        } finally {
+            Timer.builder("square.calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void rejected(String operation, String reason) {
+        Counter.builder("square.calls.rejected")
+                .tag("operation", operation)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.warn("Square {} rejected without calling Square: {} (circuit {})", operation, reason, circuitBreaker.getState());
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        executor.shutdown();
+    }
+
+    private static ThreadPoolExecutor newExecutor(int maxConcurrentCalls, int maxQueuedCalls) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "square-call-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueuedCalls), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,231 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.dto.BookingResponse;
+import com.houseofvelo.api.dto.PaymentResponse;
+import com.houseofvelo.api.event.OutboxEventTypes;
+import com.houseofvelo.api.model.*;
+import com.houseofvelo.api.repository.PaymentIntentRepository;
+import com.houseofvelo.api.repository.PaymentRepository;
+import com.houseofvelo.api.repository.WebhookEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Background worker for the Square webhook inbox. Claims batches with SKIP LOCKED (safe with several instances),
+ * loads every payment the batch mentions in one query and applies the status changes in one transaction.
+ * Updates only ever move forward (pending -> completed -> refunded), so redeliveries and out-of-order events are harmless.
+ */
+@Service
+@Slf4j
+public class SquareWebhookProcessor {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentIntentRepository paymentIntentRepository;
+    private final PaymentService paymentService;
+    private final TrainerScheduleIndex trainerScheduleIndex;
+    private final OutboxService outboxService;
+    private final TokenCompensationService tokenCompensationService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public SquareWebhookProcessor(
+            WebhookEventRepository webhookEventRepository,
+            PaymentRepository paymentRepository,
+            PaymentIntentRepository paymentIntentRepository,
+            PaymentService paymentService,
+            TrainerScheduleIndex trainerScheduleIndex,
+            OutboxService outboxService,
+            TokenCompensationService tokenCompensationService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.paymentRepository = paymentRepository;
+        this.paymentIntentRepository = paymentIntentRepository;
+        this.paymentService = paymentService;
+        this.trainerScheduleIndex = trainerScheduleIndex;
+        this.outboxService = outboxService;
+        this.tokenCompensationService = tokenCompensationService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${webhooks.square.poll-interval-ms:2000}")
+    public void processInbox() {
+        int processed;
+        do {
+            processed = processNextBatch();
+        } while (processed == BATCH_SIZE);
+    }
+
+    private int processNextBatch() {
+        List<Long> claimedIds = new ArrayList<>();
+        try {
+            return transactionTemplate.execute(status -> {
+                List<WebhookEvent> batch = webhookEventRepository.claimBatch(BATCH_SIZE);
+                batch.forEach(event -> claimedIds.add(event.getId()));
+                apply(batch);
+                return batch.size();
+            });
+        } catch (RuntimeException e) {
+            // One bad event must not hold up the rest - retry the batch one event at a time
+            log.warn("Square webhook batch of {} failed ({}), retrying events individually", claimedIds.size(), e.getMessage());
+            claimedIds.forEach(this::processOne);
+            return claimedIds.size();
+        }
+    }
+
+    private void processOne(Long eventId) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    webhookEventRepository.claimById(eventId).ifPresent(event -> apply(List.of(event))));
+        } catch (RuntimeException e) {
+            log.error("Square webhook event {} failed: {}", eventId, e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> recordFailure(eventId, e));
+        }
+    }
+
+    private void recordFailure(Long eventId, RuntimeException error) {
+        webhookEventRepository.findById(eventId).ifPresent(event -> {
+            event.setAttempts(event.getAttempts() + 1);
+            event.setLastError(error.getMessage());
+            if (event.getAttempts() >= MAX_ATTEMPTS) {
+                event.setStatus(WebhookEventStatus.FAILED);
+            }
+        });
+    }
+
+    private void apply(List<WebhookEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        List<SquareObject> objects = events.stream()
+                .map(event -> SquareObject.parse(objectMapper.readTree(event.getPayload())))
+                .collect(Collectors.toList());
+
+        // One query for every payment this batch touches
+        Set<String> squarePaymentIds = objects.stream()
+                .map(SquareObject::paymentId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Payment> payments = squarePaymentIds.isEmpty()
+                ? new HashMap<>()
+                : paymentRepository.findBySquarePaymentIdIn(squarePaymentIds).stream()
+                        .collect(Collectors.toMap(Payment::getSquarePaymentId, Function.identity()));
+
+        for (SquareObject object : objects) {
+            switch (object.kind()) {
+                case "payment" -> applyPayment(object, payments);
+                case "refund" -> applyRefund(object, payments.get(object.paymentId()));
+                default -> log.debug("Ignoring Square webhook for {}", object.kind());
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (WebhookEvent event : events) {
+            event.setStatus(WebhookEventStatus.PROCESSED);
+            event.setProcessedAt(now);
+            event.setAttempts(event.getAttempts() + 1);
+        }
+    }
+
+    // Card payments whose outcome the request path never saw (timeouts) are finished or failed here. An event only
+    // ever touches the intent that created its payment - named in reference_id, and once the intent has a Square
+    // payment id recorded, only events for that payment match. A late FAILED event from an earlier declined attempt
+    // therefore cannot fail the attempt that is in flight now
+    private void applyPayment(SquareObject payment, Map<String, Payment> payments) {
+        if (payments.containsKey(payment.paymentId())) {
+            return;
+        }
+
+        Optional<PaymentIntent> intent = paymentIntentRepository.findBySquarePaymentId(payment.paymentId())
+                .or(() -> Optional.ofNullable(payment.intentId())
+                        .flatMap(paymentIntentRepository::findById)
+                        .filter(candidate -> candidate.getSquarePaymentId() == null
+                                && candidate.getBooking().getId().equals(payment.bookingId())));
+        if (intent.isEmpty() || intent.get().getStatus() != PaymentIntentStatus.PENDING) {
+            log.debug("Square payment {} matches no pending payment attempt, ignoring its {} event", payment.paymentId(), payment.status());
+            return;
+        }
+
+        switch (payment.status()) {
+            case "COMPLETED" -> {
+                paymentService.completePaymentIntent(intent.get().getId(), payment.paymentId());
+                paymentRepository.findBySquarePaymentId(payment.paymentId())
+                        .ifPresent(recorded -> payments.put(payment.paymentId(), recorded));
+                log.info("Square webhook completed card payment {} for booking {}", payment.paymentId(), payment.bookingId());
+            }
+            case "FAILED", "CANCELED" -> paymentService.failPaymentIntent(intent.get().getId(), "SQUARE_" + payment.status());
+            default -> {
+                // APPROVED / PENDING - wait for the final state
+            }
+        }
+    }
+
+    // Refunds issued from the Square dashboard reach us only through here
+    private void applyRefund(SquareObject refund, Payment payment) {
+        if (payment == null || !"COMPLETED".equals(refund.status()) || payment.getStatus() != PaymentStatus.COMPLETED) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        payment.setStatus(PaymentStatus.REFUNDED);
+        payment.setSquareRefundId(refund.id());
+        payment.setRefundReason("Refunded in Square");
+        payment.setRefundedAt(now);
+
+        Booking booking = payment.getBooking();
+        if (booking != null && booking.getStatus() != BookingStatus.CANCELLED) {
+            booking.setStatus(BookingStatus.CANCELLED);
+            booking.setCancellationReason("Payment refunded in Square");
+            booking.setCancelledAt(now);
+            trainerScheduleIndex.syncAfterCommit(booking);
+            tokenCompensationService.compensateCancelledBooking(booking, "payment refunded in Square");
+            outboxService.record("booking", booking.getId(), OutboxEventTypes.BOOKING_CANCELLED, BookingResponse.fromBooking(booking));
+        }
+        outboxService.record("payment", payment.getId(), OutboxEventTypes.PAYMENT_REFUNDED, PaymentResponse.fromPayment(payment));
+        log.info("Square webhook refunded payment {} (refund {})", payment.getSquarePaymentId(), refund.id());
+    }
+
+    // The parts of a payment.* / refund.* event we act on
+    private record SquareObject(String kind, String id, String status, String paymentId, Long bookingId, Long intentId) {
+
+        // See PaymentService.squareReferenceId
+        private static final Pattern REFERENCE_ID = Pattern.compile("(\\d+)-(\\d+)");
+
+        static SquareObject parse(JsonNode event) {
+            JsonNode data = event.path("data");
+            String kind = data.path("type").stringValue("");
+            JsonNode object = data.path("object").path(kind);
+
+            String id = object.path("id").stringValue(null);
+            String status = object.path("status").stringValue("");
+            if ("refund".equals(kind)) {
+                return new SquareObject(kind, id, status, object.path("payment_id").stringValue(null), null, null);
+            }
+
+            // Payments created before reference ids carried the intent have none and only match by payment id
+            Matcher reference = REFERENCE_ID.matcher(object.path("reference_id").stringValue(""));
+            Long bookingId = reference.matches() ? Long.valueOf(reference.group(1)) : null;
+            Long intentId = reference.matches() ? Long.valueOf(reference.group(2)) : null;
+            return new SquareObject(kind, id, status, "payment".equals(kind) ? id : null, bookingId, intentId);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.config.SquareProperties;
+import com.houseofvelo.api.exception.InvalidWebhookSignatureException;
+import com.houseofvelo.api.repository.WebhookEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Receiving side of Square webhooks: verify the signature and append the event to the inbox. Nothing is applied
+ * here - SquareWebhookProcessor does that in the background - so Square gets its acknowledgement straight away.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SquareWebhookService {
+
+    static final String SOURCE = "square";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final SquareProperties squareProperties;
+    private final WebhookEventRepository webhookEventRepository;
+    private final ObjectMapper objectMapper;
+
+    // Returns false when the event was already in the inbox (Square redelivers until it sees a 2xx)
+    public boolean receive(byte[] body, String signature) {
+        verifySignature(body, signature);
+
+        JsonNode event;
+        try {
+            event = objectMapper.readTree(body);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Webhook body is not valid JSON");
+        }
+
+        String eventId = event.path("event_id").stringValue(null);
+        String eventType = event.path("type").stringValue(null);
+        if (eventId == null || eventType == null) {
+            throw new IllegalArgumentException("Webhook event is missing event_id or type");
+        }
+
+        boolean stored = webhookEventRepository.insertIfAbsent(
+                SOURCE, eventId, eventType, new String(body, StandardCharsets.UTF_8), LocalDateTime.now()) > 0;
+        if (!stored) {
+            log.debug("Duplicate Square webhook {} ({}) ignored", eventId, eventType);
+        }
+        return stored;
+    }
+
+    // Square signs notification URL + raw body with HMAC-SHA256 and sends it base64-encoded
+    private void verifySignature(byte[] body, String signature) {
+        String signatureKey = squareProperties.getWebhookSignatureKey();
+        String notificationUrl = squareProperties.getWebhookNotificationUrl();
+        if (signatureKey == null || notificationUrl == null) {
+            log.error("Square webhook received but square.webhook-signature-key / square.webhook-notification-url are not set");
+            throw new InvalidWebhookSignatureException("Webhook signature cannot be verified");
+        }
+        if (signature == null || signature.isBlank()) {
+            throw new InvalidWebhookSignatureException("Missing webhook signature");
+        }
+
+        byte[] expected;
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(signatureKey.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            mac.update(notificationUrl.getBytes(StandardCharsets.UTF_8));
+            expected = Base64.getEncoder().encode(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+
+        // Constant-time comparison
+        if (!MessageDigest.isEqual(expected, signature.trim().getBytes(StandardCharsets.UTF_8))) {
+            throw new InvalidWebhookSignatureException("Invalid webhook signature");
+        }
+    }
+}
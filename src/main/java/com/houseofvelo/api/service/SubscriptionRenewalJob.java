@@ -0,0 +1,207 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.model.JobCheckpoint;
+import com.houseofvelo.api.repository.JobCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rolls subscription periods forward. Every ACTIVE subscription whose period has ended either renews (tokens reset
+ * to tokensPerPeriod, period advanced to the one containing the run date - several periods if the job was down)
+ * or, without autoRenew, becomes EXPIRED. Unused tokens lapse either way.
+ *
+ * Works through due subscriptions in id order, one chunk per transaction: a single UPDATE ... RETURNING changes the
+ * chunk, the GRANTED / EXPIRED ledger rows go in as one JDBC batch, and the job_checkpoints row advances with them.
+ * A crashed run resumes after the last committed chunk.
+ */
+@Service
+@Slf4j
+public class SubscriptionRenewalJob {
+
+    static final String JOB_NAME = "subscription-renewal";
+
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(30);
+    // No minimum hold: a second run right after one finishes finds every due subscription already rolled forward, and
+    // an admin re-trigger must not be refused just because the last run ended moments ago
+    private static final Duration LOCK_AT_LEAST_FOR = Duration.ZERO;
+
+    // FOR UPDATE without SKIP LOCKED: a concurrent token spend only holds its row for a moment, and skipping
+    // it would move the checkpoint past a subscription that still needs renewing
+    private static final String RENEW_CHUNK_SQL =
+            "WITH due AS (" +
+            "    SELECT id, COALESCE(tokens_remaining, 0) AS leftover FROM subscriptions " +
+            "    WHERE status = 'ACTIVE' AND current_period_end <= :runDate AND id > :afterId " +
+            "    ORDER BY id LIMIT :chunkSize " +
+            "    FOR UPDATE" +
+            ") " +
+            "UPDATE subscriptions s SET " +
+            "    status = CASE WHEN COALESCE(s.auto_renew, TRUE) THEN 'ACTIVE' ELSE 'EXPIRED' END, " +
+            "    tokens_remaining = CASE WHEN COALESCE(s.auto_renew, TRUE) THEN COALESCE(s.tokens_per_period, 0) ELSE 0 END, " +
+            "    current_period_start = CASE WHEN COALESCE(s.auto_renew, TRUE) " +
+            "        THEN s.current_period_end + ((CAST(:runDate AS date) - s.current_period_end) / :periodDays) * :periodDays " +
+            "        ELSE s.current_period_start END, " +
+            "    current_period_end = CASE WHEN COALESCE(s.auto_renew, TRUE) " +
+            "        THEN s.current_period_end + ((CAST(:runDate AS date) - s.current_period_end) / :periodDays + 1) * :periodDays " +
+            "        ELSE s.current_period_end END, " +
+            "    updated_at = :now " +
+            "FROM due " +
+            "WHERE s.id = due.id " +
+            "RETURNING s.id, due.leftover, s.status, s.tokens_remaining, s.current_period_start, s.current_period_end";
+
+    private static final String INSERT_LEDGER_SQL =
+            "INSERT INTO token_transactions (subscription_id, type, amount, balance_after, notes, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLockService jobLockService;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final Timer runTimer;
+    private final Counter renewedCounter;
+    private final Counter expiredCounter;
+
+    @Value("${jobs.subscription-renewal.chunk-size:1000}")
+    private int chunkSize;
+
+    public SubscriptionRenewalJob(
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            JobLockService jobLockService,
+            JobCheckpointRepository jobCheckpointRepository,
+            MeterRegistry meterRegistry
+    ) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.jdbcTemplate = namedJdbcTemplate.getJdbcTemplate();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobLockService = jobLockService;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.runTimer = Timer.builder("subscriptions.renewal.duration")
+                .description("Time taken by one subscription renewal run")
+                .register(meterRegistry);
+        this.renewedCounter = Counter.builder("subscriptions.renewal.renewed")
+                .description("Subscriptions rolled into a new period")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("subscriptions.renewal.expired")
+                .description("Non-renewing subscriptions expired at period end")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${jobs.subscription-renewal.cron:0 5 0 * * *}")
+    public void scheduledRun() {
+        run();
+    }
+
+    // Returns the number of subscriptions renewed or expired, or -1 if another instance is already running the job
+    public int run() {
+        return jobLockService.runExclusively(JOB_NAME, LOCK_AT_MOST_FOR, LOCK_AT_LEAST_FOR, this::renewDueSubscriptions)
+                .orElse(-1);
+    }
+
+    private int renewDueSubscriptions() {
+        Timer.Sample sample = Timer.start();
+        JobCheckpoint checkpoint = startOrResume(LocalDate.now());
+        LocalDate runDate = checkpoint.getRunDate();
+
+        long afterId = checkpoint.getLastId();
+        int total = 0;
+        int chunks = 0;
+        ChunkResult chunk;
+        do {
+            long from = afterId;
+            chunk = transactionTemplate.execute(status -> renewChunk(runDate, from));
+            if (chunk.processed() > 0) {
+                afterId = chunk.lastId();
+            }
+            total += chunk.processed();
+            chunks++;
+        } while (chunk.processed() == chunkSize);
+
+        checkpoint.setLastId(afterId);
+        checkpoint.setProcessed(checkpoint.getProcessed() + total);
+        checkpoint.setCompletedAt(LocalDateTime.now());
+        jobCheckpointRepository.save(checkpoint);
+
+        long nanos = sample.stop(runTimer);
+        log.info("Subscription renewal as of {}: {} subscription(s) in {} chunk(s), {} ms",
+                runDate, total, chunks, Duration.ofNanos(nanos).toMillis());
+        return total;
+    }
+
+    // An unfinished run for the same date carries on after its last chunk; anything else starts a fresh pass
+    private JobCheckpoint startOrResume(LocalDate today) {
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME).orElse(null);
+        if (checkpoint != null && checkpoint.getCompletedAt() == null && today.equals(checkpoint.getRunDate())) {
+            log.info("Resuming subscription renewal for {} after subscription {}", today, checkpoint.getLastId());
+            return checkpoint;
+        }
+
+        JobCheckpoint fresh = new JobCheckpoint(JOB_NAME, today, 0L, 0L, LocalDateTime.now(), null);
+        return jobCheckpointRepository.save(fresh);
+    }
+
+    private ChunkResult renewChunk(LocalDate runDate, long afterId) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("runDate", Date.valueOf(runDate))
+                .addValue("afterId", afterId)
+                .addValue("chunkSize", chunkSize)
+                .addValue("periodDays", SubscriptionService.PERIOD_DAYS)
+                .addValue("now", timestamp);
+
+        List<Object[]> ledgerRows = new ArrayList<>();
+        long[] lastId = {afterId};
+        int[] processed = {0};
+        int[] renewed = {0};
+        namedJdbcTemplate.query(RENEW_CHUNK_SQL, params, rs -> {
+            long subscriptionId = rs.getLong("id");
+            processed[0]++;
+            int leftover = rs.getInt("leftover");
+            boolean active = "ACTIVE".equals(rs.getString("status"));
+            lastId[0] = Math.max(lastId[0], subscriptionId);
+
+            if (leftover > 0) {
+                ledgerRows.add(new Object[]{subscriptionId, "EXPIRED", -leftover, 0, "Unused tokens lapsed at period end", timestamp});
+            }
+            if (active) {
+                renewed[0]++;
+                int granted = rs.getInt("tokens_remaining");
+                ledgerRows.add(new Object[]{subscriptionId, "GRANTED", granted, granted,
+                        "Period " + rs.getDate("current_period_start") + " to " + rs.getDate("current_period_end"), timestamp});
+            }
+        });
+
+        if (!ledgerRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_LEDGER_SQL, ledgerRows);
+        }
+        if (processed[0] > 0) {
+            jobCheckpointRepository.advance(JOB_NAME, lastId[0], processed[0]);
+        }
+
+        renewedCounter.increment(renewed[0]);
+        expiredCounter.increment(processed[0] - renewed[0]);
+        return new ChunkResult(processed[0], lastId[0]);
+    }
+
+    private record ChunkResult(int processed, long lastId) {
+    }
+}
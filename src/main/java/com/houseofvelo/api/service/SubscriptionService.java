@@ -18,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,13 +26,16 @@ import java.util.stream.Collectors;
 @Slf4j
 public class SubscriptionService {
 
+    public static final int PERIOD_DAYS = 28;
+
     private final SubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
     private final PlayerRepository playerRepository;
     private final SessionTypeOptionRepository sessionTypeOptionRepository;
+    private final TokenLedgerService tokenLedgerService;
 
     @Transactional
-    public SubscriptionResponse createSubscription(SubscriptionRequest request, Long userId) {
+    public SubscriptionResponse createSubscription(SubscriptionRequest request, Long userId, Set<Long> ownedPlayerIds) {
         // Validate user
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found: " + userId));
@@ -45,14 +49,9 @@ public class SubscriptionService {
         Player player = playerRepository.findById(request.getPlayerId())
                 .orElseThrow(() -> new RuntimeException("Player not found: " + request.getPlayerId()));
 
-        // Check ownership: player can be owned via parent_id (for kids) or user_id (for independent players)
-        boolean isParentPlayer = playerRepository.findByParentId(userId).stream()
-                .anyMatch(p -> p.getId().equals(request.getPlayerId()));
-        boolean isOwnPlayer = playerRepository.findByUserId(userId)
-                .map(p -> p.getId().equals(request.getPlayerId()))
-                .orElse(false);
-
-        if (!isParentPlayer && !isOwnPlayer) {
+        // Check ownership: player can be owned via parent_id (for kids) or user_id (for independent players),
+        // both already resolved on the authenticated principal
+        if (!ownedPlayerIds.contains(request.getPlayerId())) {
             throw new IllegalStateException("Player does not belong to this user");
         }
 
@@ -78,9 +77,10 @@ public class SubscriptionService {
         subscription.setTokensRemaining(request.getTokensPerPeriod());
         subscription.setAutoRenew(request.getAutoRenew() != null ? request.getAutoRenew() : true);
         subscription.setCurrentPeriodStart(LocalDate.now());
-        subscription.setCurrentPeriodEnd(LocalDate.now().plusDays(28));
+        subscription.setCurrentPeriodEnd(LocalDate.now().plusDays(PERIOD_DAYS));
 
         Subscription savedSubscription = subscriptionRepository.save(subscription);
+        tokenLedgerService.recordOpeningBalance(savedSubscription);
 
         log.info("Subscription created for player {} (user {}). Program: {}. Tokens: {}",
                 player.getName(), userId, sessionTypeOption.getName(), savedSubscription.getTokensRemaining());
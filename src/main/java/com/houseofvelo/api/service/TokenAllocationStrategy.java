@@ -0,0 +1,19 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.model.Booking;
+
+import java.util.List;
+
+/**
+ * Decides which of a player's subscriptions pays for a booking with a token. Any Spring bean implementing this can
+ * be selected by name with tokens.allocation-strategy. A strategy only ranks: TokenLedgerService.spendToken
+ * re-checks each candidate's balance as it spends, so a stale ranking costs a fallback, never an overdraft.
+ */
+public interface TokenAllocationStrategy {
+
+    // Value of tokens.allocation-strategy that selects this strategy
+    String name();
+
+    // Up to limit ACTIVE subscription ids with a token left, best first, in a single query
+    List<Long> candidates(Booking booking, int limit);
+}
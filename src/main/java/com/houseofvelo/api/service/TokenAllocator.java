@@ -0,0 +1,38 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.model.Booking;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class TokenAllocator {
+
+    // A few spares in case the first choice spends its last token to a concurrent payment
+    private static final int CANDIDATE_LIMIT = 3;
+
+    private final TokenAllocationStrategy strategy;
+
+    // tokens.allocation-strategy is MatchingPlanAllocationStrategy.NAME (the default) or AnyPlanAllocationStrategy.NAME
+    public TokenAllocator(
+            List<TokenAllocationStrategy> strategies,
+            @Value("${tokens.allocation-strategy:" + MatchingPlanAllocationStrategy.NAME + "}") String strategyName
+    ) {
+        // An unknown name fails startup rather than silently falling back to a different allocation policy
+        this.strategy = strategies.stream()
+                .filter(candidate -> candidate.name().equals(strategyName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown tokens.allocation-strategy '" + strategyName
+                        + "', expected one of " + strategies.stream().map(TokenAllocationStrategy::name).collect(Collectors.joining(", "))));
+        log.info("Token allocation strategy: {}", strategy.name());
+    }
+
+    // Subscription ids to spend from for this booking, best first; empty when the player has no usable token
+    public List<Long> candidates(Booking booking) {
+        return strategy.candidates(booking, CANDIDATE_LIMIT);
+    }
+}
@@ -0,0 +1,45 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.event.OutboxEventTypes;
+import com.houseofvelo.api.model.Booking;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Undoes a token payment when its booking is cancelled or its payment refunded. Every cancellation path calls
+ * this in the transaction that cancels the booking; the ledger allows one RETURNED row per booking, so a later
+ * refund of an already-cancelled booking, a retried request or a replayed webhook returns nothing further.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenCompensationService {
+
+    private final TokenLedgerService tokenLedgerService;
+    private final OutboxService outboxService;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void compensateCancelledBooking(Booking booking, String reason) {
+        // Only token payments link the booking to a subscription
+        if (booking.getSubscription() == null) {
+            return;
+        }
+
+        tokenLedgerService.returnToken(booking.getId(), "Booking #" + booking.getId() + " - " + reason).ifPresentOrElse(
+                returned -> {
+                    log.info("Returned token for booking {} to subscription {}. Tokens remaining: {}",
+                            booking.getId(), returned.subscriptionId(), returned.balanceAfter());
+                    outboxService.record("subscription", returned.subscriptionId(), OutboxEventTypes.TOKEN_RETURNED, Map.of(
+                            "subscriptionId", returned.subscriptionId(),
+                            "bookingId", booking.getId(),
+                            "tokensRemaining", returned.balanceAfter()
+                    ));
+                },
+                () -> log.debug("No token to return for booking {}", booking.getId()));
+    }
+}
@@ -0,0 +1,249 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.dto.TokenLedgerRebuildResponse;
+import com.houseofvelo.api.dto.TokenTransactionResponse;
+import com.houseofvelo.api.exception.UnauthorizedAccessException;
+import com.houseofvelo.api.model.Subscription;
+import com.houseofvelo.api.repository.SubscriptionRepository;
+import com.houseofvelo.api.repository.TokenTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The token ledger. token_transactions is the append-only source of truth; subscriptions.tokens_remaining is a
+ * projection of it kept current by writing both in the same statement or transaction, so balance reads stay a
+ * single row lookup. rebuildBalances re-derives the projection from the ledger when it is in doubt.
+ */
+@Service
+@Slf4j
+public class TokenLedgerService {
+
+    // Marks the first row of a subscription's ledger (written at creation, or backfilled for older subscriptions)
+    public static final String OPENING_BALANCE_NOTE = "Opening balance";
+
+    private static final int REBUILD_FETCH_SIZE = 1000;
+    private static final int CORRECTION_BATCH_SIZE = 500;
+
+    // The conditional UPDATE is the whole concurrency story: two payments racing for the last token serialize on
+    // the row, Postgres re-checks tokens_remaining > 0 for the second one and it updates nothing
+    private static final String SPEND_SQL =
+            "WITH spent AS (" +
+            "    UPDATE subscriptions SET tokens_remaining = tokens_remaining - 1, updated_at = :now " +
+            "    WHERE id = :subscriptionId AND status = 'ACTIVE' AND tokens_remaining > 0 " +
+            "    RETURNING id, tokens_remaining" +
+            ") " +
+            "INSERT INTO token_transactions (subscription_id, booking_id, type, amount, balance_after, notes, created_at) " +
+            "SELECT id, :bookingId, 'USED', -1, tokens_remaining, :notes, :now FROM spent " +
+            "RETURNING balance_after";
+
+    // Locks the subscription a booking's token came from, so concurrent returns for the same booking queue up
+    // and each sees whether the one before it already wrote the RETURNED row
+    private static final String LOCK_SPENT_SUBSCRIPTION_SQL =
+            "SELECT s.id FROM subscriptions s JOIN token_transactions t ON t.subscription_id = s.id " +
+            "WHERE t.booking_id = :bookingId AND t.type = 'USED' " +
+            "FOR UPDATE OF s";
+
+    // Credit and RETURNED row in one statement. A token only comes back to the period it was spent in - once the
+    // subscription has renewed or ended it lapsed with the rest
+    private static final String RETURN_SQL =
+            "WITH used AS (" +
+            "    SELECT t.subscription_id, t.created_at FROM token_transactions t " +
+            "    WHERE t.booking_id = :bookingId AND t.type = 'USED' " +
+            "    AND NOT EXISTS (SELECT 1 FROM token_transactions r WHERE r.booking_id = :bookingId AND r.type = 'RETURNED') " +
+            "    ORDER BY t.created_at DESC, t.id DESC LIMIT 1" +
+            "), credited AS (" +
+            "    UPDATE subscriptions s SET tokens_remaining = s.tokens_remaining + 1, updated_at = :now " +
+            "    FROM used " +
+            "    WHERE s.id = used.subscription_id AND s.status = 'ACTIVE' AND used.created_at >= s.current_period_start " +
+            "    RETURNING s.id, s.tokens_remaining" +
+            ") " +
+            "INSERT INTO token_transactions (subscription_id, booking_id, type, amount, balance_after, notes, created_at) " +
+            "SELECT id, :bookingId, 'RETURNED', 1, tokens_remaining, :notes, :now FROM credited " +
+            "RETURNING subscription_id, balance_after";
+
+    private static final String INSERT_OPENING_SQL =
+            "INSERT INTO token_transactions (subscription_id, type, amount, balance_after, notes, created_at) " +
+            "VALUES (?, 'GRANTED', ?, ?, ?, ?)";
+
+    // Ledger order is (created_at, id) - backfilled opening rows are dated to the subscription's creation
+    private static final String REBUILD_SCAN_SQL =
+            "SELECT t.subscription_id, t.amount, t.balance_after, s.tokens_remaining " +
+            "FROM token_transactions t JOIN subscriptions s ON s.id = t.subscription_id " +
+            "ORDER BY t.subscription_id, t.created_at, t.id";
+
+    // Guarded by the balance the scan saw, so a token spent meanwhile is never overwritten
+    private static final String CORRECT_BALANCE_SQL =
+            "UPDATE subscriptions SET tokens_remaining = ?, updated_at = now() WHERE id = ? AND tokens_remaining IS NOT DISTINCT FROM ?";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final TransactionTemplate transactionTemplate;
+    private final SubscriptionRepository subscriptionRepository;
+    private final TokenTransactionRepository tokenTransactionRepository;
+
+    public TokenLedgerService(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            SubscriptionRepository subscriptionRepository,
+            TokenTransactionRepository tokenTransactionRepository
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.subscriptionRepository = subscriptionRepository;
+        this.tokenTransactionRepository = tokenTransactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Postgres only streams with a fetch size inside a transaction; REPEATABLE READ gives the scan one snapshot
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(REBUILD_FETCH_SIZE);
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public record SpentToken(Long subscriptionId, int balanceAfter) {
+    }
+
+    public record ReturnedToken(Long subscriptionId, int balanceAfter) {
+    }
+
+    // First ledger row of a new subscription, in the transaction that creates it
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOpeningBalance(Subscription subscription) {
+        int tokens = subscription.getTokensRemaining() != null ? subscription.getTokensRemaining() : 0;
+        jdbcTemplate.getJdbcTemplate().update(INSERT_OPENING_SQL,
+                subscription.getId(), tokens, tokens, OPENING_BALANCE_NOTE, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    // Spends one token from the first candidate that still has one, in the caller's transaction.
+    // Empty when every candidate ran out (or stopped being ACTIVE) since it was read
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<SpentToken> spendToken(List<Long> candidateSubscriptionIds, Long bookingId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Long subscriptionId : candidateSubscriptionIds) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("subscriptionId", subscriptionId)
+                    .addValue("bookingId", bookingId)
+                    .addValue("notes", "Booking #" + bookingId)
+                    .addValue("now", now);
+
+            List<Integer> balance = jdbcTemplate.queryForList(SPEND_SQL, params, Integer.class);
+            if (!balance.isEmpty()) {
+                return Optional.of(new SpentToken(subscriptionId, balance.get(0)));
+            }
+            log.debug("Subscription {} had no token left for booking {}, trying the next one", subscriptionId, bookingId);
+        }
+        return Optional.empty();
+    }
+
+    // Gives back the token spent on a booking, in the caller's transaction. Empty when the booking wasn't paid with
+    // a token, its token was already returned, or the token lapsed. The subscription row stays locked only until
+    // the caller commits
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<ReturnedToken> returnToken(Long bookingId, String notes) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("bookingId", bookingId)
+                .addValue("notes", notes)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+
+        if (jdbcTemplate.queryForList(LOCK_SPENT_SUBSCRIPTION_SQL, params, Long.class).isEmpty()) {
+            return Optional.empty();
+        }
+        return jdbcTemplate.query(RETURN_SQL, params, (rs, rowNum) ->
+                new ReturnedToken(rs.getLong("subscription_id"), rs.getInt("balance_after"))).stream().findFirst();
+    }
+
+    @Transactional(readOnly = true)
+    public List<TokenTransactionResponse> getHistory(Long subscriptionId, LocalDateTime from, LocalDateTime to,
+                                                     Long userId, boolean admin) {
+        Subscription subscription = subscriptionRepository.findById(subscriptionId)
+                .orElseThrow(() -> new RuntimeException("Subscription not found: " + subscriptionId));
+        if (!admin && !subscription.getUser().getId().equals(userId)) {
+            throw new UnauthorizedAccessException("You don't have permission to view this subscription");
+        }
+
+        return tokenTransactionRepository
+                .findBySubscriptionIdAndCreatedAtBetweenOrderByCreatedAtAscIdAsc(subscriptionId, from, to).stream()
+                .map(TokenTransactionResponse::fromTokenTransaction)
+                .collect(Collectors.toList());
+    }
+
+    // One pass over the whole ledger in subscription order, holding only the current subscription's running total.
+    // Any projection that disagrees with its ledger is reset to the ledger sum
+    public TokenLedgerRebuildResponse rebuildBalances() {
+        long startedAt = System.currentTimeMillis();
+        RebuildScan scan = new RebuildScan();
+
+        snapshotTransaction.executeWithoutResult(status ->
+                streamingJdbcTemplate.query(REBUILD_SCAN_SQL, rs -> {
+                    scan.accept(rs.getLong("subscription_id"), rs.getInt("amount"),
+                            (Integer) rs.getObject("balance_after"), (Integer) rs.getObject("tokens_remaining"));
+                }));
+        scan.finish();
+
+        long corrected = 0;
+        List<Object[]> corrections = scan.corrections;
+        for (int from = 0; from < corrections.size(); from += CORRECTION_BATCH_SIZE) {
+            List<Object[]> batch = corrections.subList(from, Math.min(from + CORRECTION_BATCH_SIZE, corrections.size()));
+            int[] updated = transactionTemplate.execute(status -> jdbcTemplate.getJdbcTemplate().batchUpdate(CORRECT_BALANCE_SQL, batch));
+            for (int count : updated) {
+                corrected += count > 0 ? 1 : 0;
+            }
+        }
+
+        TokenLedgerRebuildResponse report = new TokenLedgerRebuildResponse(scan.entries, scan.subscriptions,
+                scan.brokenChains, corrected, corrections.size() - corrected, System.currentTimeMillis() - startedAt);
+        log.info("Token ledger rebuild: {}", report);
+        return report;
+    }
+
+    // Running state of the rebuild scan - one subscription at a time
+    private static final class RebuildScan {
+        private final List<Object[]> corrections = new ArrayList<>();
+        private long entries;
+        private long subscriptions;
+        private long brokenChains;
+
+        private Long subscriptionId;
+        private int ledgerBalance;
+        private Integer projectedBalance;
+
+        void accept(long rowSubscriptionId, int amount, Integer balanceAfter, Integer tokensRemaining) {
+            if (subscriptionId == null || subscriptionId != rowSubscriptionId) {
+                finish();
+                subscriptionId = rowSubscriptionId;
+                ledgerBalance = 0;
+                projectedBalance = tokensRemaining;
+                subscriptions++;
+            }
+            entries++;
+            ledgerBalance += amount;
+            if (balanceAfter == null || balanceAfter != ledgerBalance) {
+                brokenChains++;
+            }
+        }
+
+        void finish() {
+            if (subscriptionId != null && (projectedBalance == null || projectedBalance != ledgerBalance)) {
+                log.warn("Subscription {} balance {} disagrees with its ledger ({})", subscriptionId, projectedBalance, ledgerBalance);
+                corrections.add(new Object[]{ledgerBalance, subscriptionId, projectedBalance});
+            }
+            subscriptionId = null;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.houseofvelo.api.service;
+
+import com.houseofvelo.api.model.Booking;
+import com.houseofvelo.api.model.BookingStatus;
+import com.houseofvelo.api.repository.BookingRepository;
+import com.houseofvelo.api.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory, per-trainer index of the bookings that block a time slot (CONFIRMED / UNPAID).
+ * Lets createBooking reject clashes without running the interval query against Postgres.
+ * The database stays the source of truth - the index is warmed at startup and updated after commit.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TrainerScheduleIndex {
+
+    static final Set<BookingStatus> BLOCKING_STATUSES = EnumSet.of(BookingStatus.CONFIRMED, BookingStatus.UNPAID);
+
+    // Sessions already in progress still block their slot, so keep a little history around
+    private static final int RETAIN_PAST_HOURS = 24;
+
+    private final BookingRepository bookingRepository;
+
+    private final Map<Long, TrainerSchedule> schedules = new ConcurrentHashMap<>();
+
+    // Bookings changed while the warm-up query was running - the warm-up must not overwrite them
+    private volatile Set<Long> touchedDuringWarmup;
+    private volatile boolean warm;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        touchedDuringWarmup = ConcurrentHashMap.newKeySet();
+        LocalDateTime from = LocalDateTime.now().minusHours(RETAIN_PAST_HOURS);
+
+        List<Booking> bookings = bookingRepository.findByStatusInAndScheduledAtGreaterThanEqual(BLOCKING_STATUSES, from);
+        for (Booking booking : bookings) {
+            BookedInterval interval = BookedInterval.of(booking);
+            TrainerSchedule schedule = scheduleFor(booking.getTrainer().getId());
+            schedule.lock.writeLock().lock();
+            try {
+                if (!touchedDuringWarmup.contains(interval.bookingId())) {
+                    schedule.put(interval);
+                }
+            } finally {
+                schedule.lock.writeLock().unlock();
+            }
+        }
+
+        warm = true;
+        touchedDuringWarmup = null;
+        log.info("Trainer schedule index warmed with {} bookings across {} trainers", bookings.size(), schedules.size());
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    // True when a blocking booking overlaps [start, end). Always false until warmed so callers fall back to the database.
+    // Expired checkout holds no longer block, even before SlotHoldService has cancelled them
+    public boolean hasConflict(Long trainerId, LocalDateTime start, LocalDateTime end) {
+        if (!warm) {
+            return false;
+        }
+        TrainerSchedule schedule = schedules.get(trainerId);
+        if (schedule == null) {
+            return false;
+        }
+
+        schedule.lock.readLock().lock();
+        try {
+            return schedule.hasOverlap(start, end, LocalDateTime.now());
+        } finally {
+            schedule.lock.readLock().unlock();
+        }
+    }
+
+    // Snapshot of the blocking intervals that overlap [from, to), ordered by start time
+    public List<BookedInterval> bookedIntervals(Long trainerId, LocalDateTime from, LocalDateTime to) {
+        TrainerSchedule schedule = schedules.get(trainerId);
+        if (schedule == null) {
+            return List.of();
+        }
+
+        schedule.lock.readLock().lock();
+        try {
+            return schedule.overlapping(from, to, LocalDateTime.now());
+        } finally {
+            schedule.lock.readLock().unlock();
+        }
+    }
+
+    // Re-index a booking once the surrounding transaction commits (create, cancel, refund, status change)
+    public void syncAfterCommit(Booking booking) {
+        Long trainerId = booking.getTrainer().getId();
+        BookedInterval interval = BookedInterval.of(booking);
+        boolean blocking = BLOCKING_STATUSES.contains(booking.getStatus());
+
+        TransactionUtils.afterCommit(() -> apply(trainerId, interval, blocking));
+    }
+
+    // Drop a booking from the index once the surrounding transaction commits (hard delete)
+    public void removeAfterCommit(Long bookingId, Long trainerId) {
+        TransactionUtils.afterCommit(() -> apply(trainerId, new BookedInterval(bookingId, null, null, null), false));
+    }
+
+    private void apply(Long trainerId, BookedInterval interval, boolean blocking) {
+        TrainerSchedule schedule = scheduleFor(trainerId);
+        schedule.lock.writeLock().lock();
+        try {
+            Set<Long> touched = touchedDuringWarmup;
+            if (touched != null) {
+                touched.add(interval.bookingId());
+            }
+
+            schedule.remove(interval.bookingId());
+            if (blocking) {
+                schedule.put(interval);
+            }
+            schedule.pruneBefore(LocalDateTime.now().minusHours(RETAIN_PAST_HOURS));
+        } finally {
+            schedule.lock.writeLock().unlock();
+        }
+    }
+
+    private TrainerSchedule scheduleFor(Long trainerId) {
+        return schedules.computeIfAbsent(trainerId, id -> new TrainerSchedule());
+    }
+
+    // holdExpiresAt is only set for UNPAID bookings still inside their checkout hold
+    public record BookedInterval(Long bookingId, LocalDateTime start, LocalDateTime end, LocalDateTime holdExpiresAt) {
+
+        static BookedInterval of(Booking booking) {
+            return new BookedInterval(
+                    booking.getId(),
+                    booking.getScheduledAt(),
+                    booking.getScheduledAt().plusMinutes(booking.getDurationMinutes()),
+                    booking.getStatus() == BookingStatus.UNPAID ? booking.getHoldExpiresAt() : null
+            );
+        }
+
+        boolean blocksAt(LocalDateTime now) {
+            return holdExpiresAt == null || holdExpiresAt.isAfter(now);
+        }
+    }
+
+    // Blocking intervals for one trainer, ordered by start time (booking id breaks ties)
+    private static final class TrainerSchedule {
+
+        private static final Comparator<BookedInterval> ORDER = Comparator
+                .comparing(BookedInterval::start)
+                .thenComparing(BookedInterval::bookingId);
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final TreeSet<BookedInterval> intervals = new TreeSet<>(ORDER);
+        private final Map<Long, BookedInterval> byBooking = new HashMap<>();
+
+        // Longest booking seen - bounds how far back an overlapping interval can start
+        private long maxDurationMinutes;
+
+        void put(BookedInterval interval) {
+            intervals.add(interval);
+            byBooking.put(interval.bookingId(), interval);
+            maxDurationMinutes = Math.max(maxDurationMinutes,
+                    Duration.between(interval.start(), interval.end()).toMinutes());
+        }
+
+        void remove(Long bookingId) {
+            BookedInterval existing = byBooking.remove(bookingId);
+            if (existing != null) {
+                intervals.remove(existing);
+            }
+        }
+
+        boolean hasOverlap(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+            for (BookedInterval interval : candidates(start, end)) {
+                if (interval.end().isAfter(start) && interval.blocksAt(now)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        List<BookedInterval> overlapping(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+            List<BookedInterval> result = new ArrayList<>();
+            for (BookedInterval interval : candidates(start, end)) {
+                if (interval.end().isAfter(start) && interval.blocksAt(now)) {
+                    result.add(interval);
+                }
+            }
+            return result;
+        }
+
+        // Only intervals starting in [start - maxDuration, end) can reach into the requested range
+        private NavigableSet<BookedInterval> candidates(LocalDateTime start, LocalDateTime end) {
+            BookedInterval from = new BookedInterval(Long.MIN_VALUE, start.minusMinutes(maxDurationMinutes), null, null);
+            BookedInterval to = new BookedInterval(Long.MIN_VALUE, end, null, null);
+            return intervals.subSet(from, true, to, false);
+        }
+
+        void pruneBefore(LocalDateTime cutoff) {
+            Iterator<BookedInterval> iterator = intervals.iterator();
+            while (iterator.hasNext()) {
+                BookedInterval interval = iterator.next();
+                if (!interval.start().isBefore(cutoff)) {
+                    break;
+                }
+                if (interval.end().isBefore(cutoff)) {
+                    iterator.remove();
+                    byBooking.remove(interval.bookingId());
+                }
+            }
+        }
+    }
+}
@@ -24,6 +24,8 @@ public class TrainerService {
 
     private final TrainerRepository trainerRepository;
     private final UserRepository userRepository;
+    private final AuthenticatedUserService authenticatedUserService;
+    private final CatalogCache catalogCache;
 
     // Get my trainer profile (for trainer viewing their own profile)
     public TrainerResponse getMyProfile(Long userId){
@@ -58,6 +60,7 @@ public class TrainerService {
         }
 
         Trainer updatedTrainer = trainerRepository.save(trainer);
+        catalogCache.evictAfterCommit(CatalogCache.TRAINERS, CatalogCache.trainer(updatedTrainer.getId()));
         return TrainerResponse.fromTrainer(updatedTrainer);
     }
 
@@ -99,6 +102,8 @@ public class TrainerService {
         trainer.setIsActive(request.getIsActive() != null ? request.getIsActive() : true);
 
         Trainer savedTrainer = trainerRepository.save(trainer);
+        authenticatedUserService.evictAfterCommit(userId);
+        catalogCache.evictAfterCommit(CatalogCache.TRAINERS, CatalogCache.trainer(savedTrainer.getId()));
         return TrainerResponse.fromTrainer(savedTrainer);
     }
 
@@ -0,0 +1,28 @@
+package com.houseofvelo.api.util;
+
+import com.houseofvelo.api.exception.TrainerNotFoundException;
+import com.houseofvelo.api.model.Role;
+
+import java.security.Principal;
+import java.util.Set;
+
+// The caller of the current request, resolved once by JwtAuthenticationFilter and handed to controllers as a parameter.
+// trainerId is null unless the user has a trainer profile; playerIds are the players they manage or are
+public record AuthenticatedUser(Long userId, String email, Role role, Long trainerId, Set<Long> playerIds) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public Long requireTrainerId() {
+        if (trainerId == null) {
+            throw new TrainerNotFoundException("No trainer profile found for this user");
+        }
+        return trainerId;
+    }
+
+    public boolean ownsPlayer(Long playerId) {
+        return playerIds.contains(playerId);
+    }
+}
@@ -0,0 +1,142 @@
+package com.houseofvelo.api.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. While CLOSED it records the outcome of the last windowSize calls and opens once
+ * at least minimumCalls have been seen and the failure rate reaches failureRateThreshold. OPEN rejects every
+ * call until openDurationMillis has passed, then HALF_OPEN lets trialCalls through: all succeeding closes the
+ * circuit again, any failing re-opens it. Thread-safe.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationMillis;
+    private final int trialCalls;
+    private final LongSupplier clock;
+
+    // Ring buffer of the most recent outcomes while CLOSED (true = failure)
+    private final boolean[] window;
+    private int windowIndex;
+    private int recordedCalls;
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+    private long openedAtMillis;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openDurationMillis, int trialCalls, LongSupplier clock) {
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || trialCalls < 1
+                || failureRateThreshold <= 0 || failureRateThreshold > 1 || openDurationMillis <= 0) {
+            throw new IllegalArgumentException("Invalid circuit breaker settings");
+        }
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMillis = openDurationMillis;
+        this.trialCalls = trialCalls;
+        this.clock = clock;
+        this.window = new boolean[windowSize];
+    }
+
+    // Must be followed by exactly one of onSuccess / onFailure / release when it returns true
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAtMillis >= openDurationMillis) {
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (trialsStarted >= trialCalls) {
+                    yield false;
+                }
+                trialsStarted++;
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void onSuccess() {
+        switch (state) {
+            case CLOSED -> record(false);
+            case HALF_OPEN -> {
+                trialsSucceeded++;
+                if (trialsSucceeded >= trialCalls) {
+                    close();
+                }
+            }
+            case OPEN -> {
+                // A call that started before the circuit opened - too late to count
+            }
+        }
+    }
+
+    public synchronized void onFailure() {
+        switch (state) {
+            case CLOSED -> {
+                record(true);
+                if (recordedCalls >= minimumCalls && (double) failedCalls / recordedCalls >= failureRateThreshold) {
+                    open();
+                }
+            }
+            case HALF_OPEN -> open();
+            case OPEN -> {
+            }
+        }
+    }
+
+    // The permit was granted but the call never reached the remote side
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && trialsStarted > trialsSucceeded) {
+            trialsStarted--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    // How long until an OPEN circuit lets a trial call through; 0 when not open
+    public synchronized long getRetryAfterMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openedAtMillis + openDurationMillis - clock.getAsLong());
+    }
+
+    private void record(boolean failure) {
+        if (recordedCalls == windowSize) {
+            if (window[windowIndex]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            failedCalls++;
+        }
+        windowIndex = (windowIndex + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtMillis = clock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowIndex = 0;
+        recordedCalls = 0;
+        failedCalls = 0;
+    }
+}
@@ -0,0 +1,29 @@
+package com.houseofvelo.api.util;
+
+import java.sql.SQLException;
+
+public final class DatabaseErrors {
+
+    // Postgres SQLSTATE for a row rejected by an EXCLUDE constraint
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private DatabaseErrors() {
+    }
+
+    public static boolean isExclusionViolation(Throwable error) {
+        return hasSqlState(error, EXCLUSION_VIOLATION);
+    }
+
+    // Walk the cause chain - Spring and Hibernate both wrap the driver's SQLException
+    private static boolean hasSqlState(Throwable error, String sqlState) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlState.equals(sqlException.getSQLState())) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
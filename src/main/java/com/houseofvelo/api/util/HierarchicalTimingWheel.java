@@ -0,0 +1,134 @@
+package com.houseofvelo.api.util;
+
+import java.util.*;
+
+/**
+ * Hierarchical timing wheel: O(1) schedule / cancel and a cost per tick proportional to the number of timers
+ * that actually fire. Level 0 has one slot per tick; each level above covers wheelSize times the span of the
+ * one below, and its slots are cascaded down a level as the wheel turns past them. Deadlines beyond the top
+ * level wait in the top level and are re-placed each time their slot comes round.
+ * Keys are unique - scheduling a key again replaces its previous deadline. Thread-safe.
+ */
+public final class HierarchicalTimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int levelCount;
+
+    // buckets[level][slot] -> key -> deadline tick
+    private final List<List<Map<K, Long>>> buckets;
+    private final Map<K, Location> locations = new HashMap<>();
+
+    // Timers whose deadline had already passed when scheduled - returned on the next advance
+    private final Map<K, Long> overdue = new LinkedHashMap<>();
+
+    private long currentTick;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("tickMillis must be positive, wheelSize at least 2 and levelCount at least 1");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levelCount = levelCount;
+        this.currentTick = startMillis / tickMillis;
+
+        this.buckets = new ArrayList<>(levelCount);
+        for (int level = 0; level < levelCount; level++) {
+            List<Map<K, Long>> slots = new ArrayList<>(wheelSize);
+            for (int slot = 0; slot < wheelSize; slot++) {
+                slots.add(new HashMap<>());
+            }
+            buckets.add(slots);
+        }
+    }
+
+    // Fire key once the clock reaches deadlineMillis (rounded up to the next tick)
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        place(key, deadlineTick, overdue);
+    }
+
+    public synchronized boolean cancel(K key) {
+        Location location = locations.remove(key);
+        if (location != null) {
+            buckets.get(location.level()).get(location.slot()).remove(key);
+            return true;
+        }
+        return overdue.remove(key) != null;
+    }
+
+    public synchronized boolean contains(K key) {
+        return locations.containsKey(key) || overdue.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return locations.size() + overdue.size();
+    }
+
+    // Turn the wheel up to nowMillis and return every key whose deadline has passed, earliest ticks first
+    public synchronized List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>(overdue.keySet());
+        overdue.clear();
+
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            // Cascade from the top so timers can drop several levels in one tick; level 0 cascades every tick,
+            // which fires its due timers and re-parks any that only aliased into the slot
+            for (int level = levelCount - 1; level >= 0; level--) {
+                if (currentTick % ticksPerSlot(level) == 0) {
+                    cascade(level, slotFor(level, currentTick), expired);
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void cascade(int level, int slot, List<K> expired) {
+        List<Map<K, Long>> slots = buckets.get(level);
+        Map<K, Long> bucket = slots.get(slot);
+        slots.set(slot, new HashMap<>());
+
+        Map<K, Long> due = new LinkedHashMap<>();
+        bucket.forEach((key, deadlineTick) -> {
+            locations.remove(key);
+            place(key, deadlineTick, due);
+        });
+        expired.addAll(due.keySet());
+    }
+
+    // Lowest level whose span covers the remaining ticks; anything further out parks in the top level
+    private void place(K key, long deadlineTick, Map<K, Long> due) {
+        long remaining = deadlineTick - currentTick;
+        if (remaining <= 0) {
+            due.put(key, deadlineTick);
+            return;
+        }
+
+        int level = 0;
+        while (level < levelCount - 1 && remaining >= ticksPerSlot(level + 1)) {
+            level++;
+        }
+        int slot = slotFor(level, deadlineTick);
+        buckets.get(level).get(slot).put(key, deadlineTick);
+        locations.put(key, new Location(level, slot));
+    }
+
+    private long ticksPerSlot(int level) {
+        long ticks = 1;
+        for (int i = 0; i < level; i++) {
+            ticks *= wheelSize;
+        }
+        return ticks;
+    }
+
+    private int slotFor(int level, long tick) {
+        return (int) ((tick / ticksPerSlot(level)) % wheelSize);
+    }
+
+    private record Location(int level, int slot) {
+    }
+}
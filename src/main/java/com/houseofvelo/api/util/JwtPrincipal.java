@@ -0,0 +1,13 @@
+package com.houseofvelo.api.util;
+
+import com.houseofvelo.api.model.Role;
+
+import java.time.Instant;
+
+// What a verified token says about its bearer - produced once per token by JwtUtil.authenticate
+public record JwtPrincipal(String email, Role role, Long userId, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
@@ -2,17 +2,24 @@ package com.houseofvelo.api.util;
 
 import com.houseofvelo.api.model.Role;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Component
@@ -24,8 +31,23 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration; // milliseconds
 
-    private SecretKey getSigningKey(){
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    // Max verified tokens kept in memory - each entry is a few hundred bytes
+    @Value("${jwt.cache-size:10000}")
+    private int cacheSize;
+
+    // Built once - the key and parser are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // SHA-256(token) -> principal, so a repeat request skips signature verification entirely
+    private final Map<String, JwtPrincipal> principalCache = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
     // Generate token for user
@@ -36,6 +58,42 @@ public class JwtUtil {
         return createToken(claims, email);
     }
 
+    // Verify a token once and return who it belongs to. Throws if the signature is bad or the token has expired
+    public JwtPrincipal authenticate(String token) {
+        Instant now = Instant.now();
+        String cacheKey = hash(token);
+
+        JwtPrincipal cached = principalCache.get(cacheKey);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            principalCache.remove(cacheKey);
+        }
+
+        JwtPrincipal principal = parseToken(token);
+        if (principal.isExpired(now)) {
+            // Expiry has one-second granularity in the token, so this only happens right at the boundary
+            return principal;
+        }
+        if (principalCache.size() >= cacheSize) {
+            evict(now);
+        }
+        principalCache.put(cacheKey, principal);
+        return principal;
+    }
+
+    // Single parse + verification: every claim the filter needs, read from one Claims object
+    public JwtPrincipal parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+        return new JwtPrincipal(
+                claims.getSubject(),
+                Role.valueOf(claims.get("role", String.class)),
+                claims.get("userId", Long.class),
+                claims.getExpiration().toInstant()
+        );
+    }
+
     public Long extractUserId(String token){
         return extractClaim(token, claims -> claims.get("userId", Long.class));
     }
@@ -49,7 +107,7 @@ public class JwtUtil {
                 .subject(subject)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -76,22 +134,35 @@ public class JwtUtil {
 
     //Parse and validate token, extract all claims
     private Claims extractAllClaims(String token){
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return parser
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    // Check if token is expired
-    private Boolean isTokenExpired(String token){
-        return extractExpiration(token).before(new Date());
-    }
-
     //Validate token
     public Boolean validateToken(String token, String email){
-        final String extractedEmail = extractEmail(token);
-        return (extractedEmail.equals(email) && !isTokenExpired(token));
+        JwtPrincipal principal = parseToken(token);
+        return principal.email().equals(email) && !principal.isExpired(Instant.now());
+    }
+
+    // Drop expired entries first; if the cache is still full, make room by discarding arbitrary entries
+    private void evict(Instant now) {
+        principalCache.values().removeIf(principal -> principal.isExpired(now));
+
+        Iterator<String> keys = principalCache.keySet().iterator();
+        while (principalCache.size() >= cacheSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
     }
 
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to ship SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,102 @@
+#!/bin/bash
+# Benchmark for token allocation: seeds players with many subscription plans, then times the old lookup (load every
+# ACTIVE plan with tokens) against the single ranked query each TokenAllocationStrategy runs. Everything happens in
+# one transaction that is rolled back, so the database is left as it was. Run against a schema the app has created
+# (the idx_subscriptions_player_option_status index must exist).
+# Usage: ./token-allocation-benchmark.sh [players] [plans_per_player] [iterations]
+# Example: DB_USERNAME=hov DB_PASSWORD=secret ./token-allocation-benchmark.sh 2000 40 5000
+
+PLAYERS="${1:-2000}"
+PLANS="${2:-40}"
+ITERATIONS="${3:-5000}"
+
+export PGPASSWORD="$DB_PASSWORD"
+PSQL=(psql -X -q -v ON_ERROR_STOP=1 -h "${DB_HOST:-localhost}" -p "${DB_PORT:-5432}" -U "$DB_USERNAME" -d "${DB_NAME:-houseofvelo_java}")
+
+if ! command -v psql > /dev/null; then
+    echo "psql is required"
+    exit 1
+fi
+
+echo "=== Seeding $PLAYERS players x $PLANS plans, timing $ITERATIONS lookups per query (rolled back afterwards) ==="
+"${PSQL[@]}" <<SQL
+BEGIN;
+
+INSERT INTO session_types (name, duration_minutes, is_active, created_at, updated_at)
+VALUES ('Allocation benchmark', 60, TRUE, now(), now());
+
+INSERT INTO session_type_options (session_type_id, name, price, pricing_type, billing_period_days, max_participants, is_active, created_at, updated_at)
+SELECT currval(pg_get_serial_sequence('session_types', 'id')), 'Allocation benchmark plan ' || g, 100, 'SUBSCRIPTION', 28, 1, TRUE, now(), now()
+FROM generate_series(1, $PLANS) g;
+
+INSERT INTO users (email, password, name, role, created_at, updated_at)
+VALUES ('allocation-benchmark@example.com', 'x', 'Allocation benchmark', 'PARENT', now(), now());
+
+INSERT INTO players (parent_id, name, age, sport, created_at, updated_at)
+SELECT currval(pg_get_serial_sequence('users', 'id')), 'Allocation benchmark player ' || g, 12, 'BASEBALL', now(), now()
+FROM generate_series(1, $PLAYERS) g;
+
+CREATE TEMP TABLE bench_options ON COMMIT DROP AS
+SELECT id FROM session_type_options WHERE name LIKE 'Allocation benchmark plan %';
+
+CREATE TEMP TABLE bench_players ON COMMIT DROP AS
+SELECT id FROM players WHERE name LIKE 'Allocation benchmark player %';
+
+-- Every player holds every plan: a mix of periods ending soon and later, some drained, some expired
+INSERT INTO subscriptions (user_id, player_id, session_type_option_id, status, current_period_start, current_period_end,
+                           tokens_per_period, tokens_remaining, auto_renew, created_at, updated_at)
+SELECT (SELECT id FROM users WHERE email = 'allocation-benchmark@example.com'), p.id, o.id,
+       CASE WHEN random() < 0.1 THEN 'EXPIRED' ELSE 'ACTIVE' END,
+       current_date - 14, current_date + (random() * 28)::int,
+       8, (random() * 8)::int, TRUE, now(), now()
+FROM bench_players p CROSS JOIN bench_options o;
+
+ANALYZE subscriptions;
+
+\echo
+\echo '--- Plan of the matching-plan query'
+EXPLAIN (COSTS OFF)
+SELECT id FROM subscriptions
+WHERE player_id = (SELECT min(id) FROM bench_players) AND session_type_option_id = (SELECT min(id) FROM bench_options)
+  AND status = 'ACTIVE' AND tokens_remaining > 0
+ORDER BY current_period_end, id LIMIT 3;
+
+DO \$\$
+DECLARE
+    players bigint[] := ARRAY(SELECT id FROM bench_players);
+    options bigint[] := ARRAY(SELECT id FROM bench_options);
+    player bigint;
+    option bigint;
+    ids bigint[];
+    started timestamptz;
+    label text;
+BEGIN
+    FOREACH label IN ARRAY ARRAY['load-all (before)', 'matching-plan', 'any-plan'] LOOP
+        started := clock_timestamp();
+        FOR i IN 1..$ITERATIONS LOOP
+            player := players[1 + (random() * (array_length(players, 1) - 1))::int];
+            option := options[1 + (random() * (array_length(options, 1) - 1))::int];
+            IF label = 'load-all (before)' THEN
+                SELECT array_agg(s.id) INTO ids FROM (
+                    SELECT * FROM subscriptions
+                    WHERE player_id = player AND status = 'ACTIVE' AND tokens_remaining > 0) s;
+            ELSIF label = 'matching-plan' THEN
+                SELECT array_agg(id) INTO ids FROM (
+                    SELECT id FROM subscriptions
+                    WHERE player_id = player AND session_type_option_id = option AND status = 'ACTIVE' AND tokens_remaining > 0
+                    ORDER BY current_period_end, id LIMIT 3) s;
+            ELSE
+                SELECT array_agg(id) INTO ids FROM (
+                    SELECT id FROM subscriptions
+                    WHERE player_id = player AND status = 'ACTIVE' AND tokens_remaining > 0
+                    ORDER BY (session_type_option_id = option) IS NOT TRUE, current_period_end, id LIMIT 3) s;
+            END IF;
+        END LOOP;
+        RAISE NOTICE '%: % us per lookup', rpad(label, 18),
+            round(extract(epoch FROM clock_timestamp() - started) * 1000000 / $ITERATIONS, 1);
+    END LOOP;
+END
+\$\$;
+
+ROLLBACK;
+SQL
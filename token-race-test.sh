@@ -0,0 +1,61 @@
+#!/bin/bash
+# Concurrency check for token payments: pays several UNPAID bookings of the same player with tokens at once
+# and verifies no more tokens are spent than the player had.
+# Create the bookings first (one per slot), then pass their ids. Give the player's subscription fewer tokens
+# than bookings to exercise the last-token race.
+# Usage: ./token-race-test.sh <parent_email> <parent_password> <tokens_available> <booking_id> [booking_id...]
+# Example: ./token-race-test.sh parent@hov.com secret123 1 101 102 103 104
+
+BASE_URL="http://localhost:8080/api"
+
+if [ -z "$1" ] || [ -z "$2" ] || [ -z "$3" ] || [ -z "$4" ]; then
+    echo "Usage: ./token-race-test.sh <parent_email> <parent_password> <tokens_available> <booking_id> [booking_id...]"
+    exit 1
+fi
+
+EMAIL="$1"
+PASSWORD="$2"
+TOKENS="$3"
+shift 3
+BOOKING_IDS=("$@")
+
+echo "=== Logging in ==="
+LOGIN_RESPONSE=$(curl -s -X POST "$BASE_URL/auth/login" \
+    -H "Content-Type: application/json" \
+    -d "{\"email\": \"$EMAIL\", \"password\": \"$PASSWORD\"}")
+
+TOKEN=$(echo $LOGIN_RESPONSE | grep -o '"token":"[^"]*"' | cut -d'"' -f4)
+
+if [ -z "$TOKEN" ]; then
+    echo "Failed to get token. Response: $LOGIN_RESPONSE"
+    exit 1
+fi
+
+RESULTS=$(mktemp)
+
+echo "=== Paying ${#BOOKING_IDS[@]} bookings with tokens concurrently ($TOKENS token(s) available) ==="
+for BOOKING_ID in "${BOOKING_IDS[@]}"; do
+    curl -s -o /dev/null -w "%{http_code}\n" -X POST "$BASE_URL/payments" \
+        -H "Authorization: Bearer $TOKEN" \
+        -H "Content-Type: application/json" \
+        -d "{\"bookingId\": $BOOKING_ID, \"useToken\": true}" \
+        >> "$RESULTS" &
+done
+wait
+
+PAID=$(grep -c '^200$' "$RESULTS")
+REFUSED=$((${#BOOKING_IDS[@]} - PAID))
+rm -f "$RESULTS"
+
+echo "Paid:    $PAID"
+echo "Refused: $REFUSED"
+
+EXPECTED=$(( TOKENS < ${#BOOKING_IDS[@]} ? TOKENS : ${#BOOKING_IDS[@]} ))
+if [ "$PAID" -eq "$EXPECTED" ]; then
+    echo "PASS - exactly $EXPECTED token payment(s) went through"
+else
+    echo "FAIL - expected $EXPECTED token payment(s), got $PAID"
+    exit 1
+fi
+echo "The ledger should show one USED row per paid booking:"
+echo "  SELECT subscription_id, booking_id, amount, balance_after FROM token_transactions WHERE type = 'USED' ORDER BY id DESC;"
@@ -0,0 +1,63 @@
+#!/bin/bash
+# Idempotency check for token compensation: cancels a token-paid booking and refunds its payment several times
+# at once, then verifies the subscription got exactly one token back (one RETURNED row in its ledger).
+# Pay the booking with a token first (see token-race-test.sh) and look up its payment id.
+# Usage: ./token-return-test.sh <parent_email> <parent_password> <admin_email> <admin_password> <booking_id> <payment_id> <subscription_id> [attempts]
+# Example: ./token-return-test.sh parent@hov.com secret123 admin@hov.com admin123 101 55 7 5
+
+BASE_URL="http://localhost:8080/api"
+
+if [ -z "$1" ] || [ -z "$2" ] || [ -z "$3" ] || [ -z "$4" ] || [ -z "$5" ] || [ -z "$6" ] || [ -z "$7" ]; then
+    echo "Usage: ./token-return-test.sh <parent_email> <parent_password> <admin_email> <admin_password> <booking_id> <payment_id> <subscription_id> [attempts]"
+    exit 1
+fi
+
+BOOKING_ID="$5"
+PAYMENT_ID="$6"
+SUBSCRIPTION_ID="$7"
+ATTEMPTS="${8:-5}"
+
+login() {
+    curl -s -X POST "$BASE_URL/auth/login" \
+        -H "Content-Type: application/json" \
+        -d "{\"email\": \"$1\", \"password\": \"$2\"}" | grep -o '"token":"[^"]*"' | cut -d'"' -f4
+}
+
+echo "=== Logging in ==="
+PARENT_TOKEN=$(login "$1" "$2")
+ADMIN_TOKEN=$(login "$3" "$4")
+
+if [ -z "$PARENT_TOKEN" ] || [ -z "$ADMIN_TOKEN" ]; then
+    echo "Failed to log in both users"
+    exit 1
+fi
+
+returned_rows() {
+    curl -s "$BASE_URL/subscriptions/$SUBSCRIPTION_ID/ledger?from=2000-01-01T00:00:00" \
+        -H "Authorization: Bearer $ADMIN_TOKEN" | grep -o "\"bookingId\":$BOOKING_ID,\"type\":\"RETURNED\"" | wc -l
+}
+
+BEFORE=$(returned_rows)
+
+echo "=== Cancelling booking $BOOKING_ID and refunding payment $PAYMENT_ID $ATTEMPTS time(s) concurrently ==="
+curl -s -o /dev/null -w "cancel: %{http_code}\n" -X PUT "$BASE_URL/bookings/$BOOKING_ID/cancel" \
+    -H "Authorization: Bearer $PARENT_TOKEN" \
+    -H "Content-Type: application/json" \
+    -d '{"reason": "Token return test"}' &
+for i in $(seq 1 "$ATTEMPTS"); do
+    curl -s -o /dev/null -w "refund: %{http_code}\n" -X POST "$BASE_URL/payments/$PAYMENT_ID/refund" \
+        -H "Authorization: Bearer $ADMIN_TOKEN" \
+        -H "Content-Type: application/json" \
+        -d '{"reason": "Token return test"}' &
+done
+wait
+
+AFTER=$(returned_rows)
+echo "RETURNED rows for booking $BOOKING_ID: before $BEFORE, after $AFTER"
+
+if [ "$BEFORE" -eq 0 ] && [ "$AFTER" -eq 1 ]; then
+    echo "PASS - the token came back exactly once"
+else
+    echo "FAIL - expected exactly one RETURNED row"
+    exit 1
+fi